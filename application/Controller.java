@@ -66,10 +66,13 @@ import model.Address;
 import model.Contact;
 import model.ContactManager;
 import model.CorporateContact;
+import model.ImageCache;
 import model.Note;
 import model.JSONLoader;
+import model.Loader;
 import model.PersonalContact;
 import model.PhoneNumber;
+import model.SearchService;
 import utils.IconFactory;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.Node;
@@ -106,6 +109,12 @@ public class Controller implements Initializable
 	 */
 	private ContactManager manager = null;
 
+	/**
+	 * Loader of the current file, kept between saves so that saving again
+	 * only writes the contacts changed since last load or save
+	 */
+	private Loader loader = null;
+
 	/**
 	 * Currently selected contact in {@link #contactListView} or null
 	 * if there is no selected contact
@@ -431,6 +440,7 @@ public class Controller implements Initializable
 
 		
 		manager = new ContactManager();
+		manager.setSearchService(new SearchService(manager));
 
 		//Tests dataset to be removed
 
@@ -512,6 +522,8 @@ public class Controller implements Initializable
 		linkButton.disableProperty().bind(edition.not()) ;
 		phoneButton.disableProperty().bind(edition.not()) ;
 		contactListView.setItems(contactsList) ;
+		ImageCache.setSize(iconView.getFitWidth() * IconFactory.getScale()) ;
+		IconFactory.preload(iconView.getFitWidth(), "contacts", "building") ;
 		contactListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE) ;
 		GridPane.setConstraints(firstName, 1, 0) ;
 		GridPane.setConstraints(lastName, 2, 0) ;
@@ -530,12 +542,11 @@ public class Controller implements Initializable
 	// ------------------------------------------------------------------------
 public void onLoadAction(ActionEvent event) {
     try {
-        JSONLoader loader = new JSONLoader(new File("chemin_vers_votre_fichier.json"));
+        loader = new JSONLoader(new File("chemin_vers_votre_fichier.json"));
 
         Set<Contact> contacts = loader.load();
-        for (Contact contact : contacts) {
-				System.out.println(contact);
-			}
+        manager.addAll(contacts);
+        logger.info(contacts.size() + " contacts loaded from " + loader.getFile());
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
@@ -554,6 +565,17 @@ public void onLoadAction(ActionEvent event) {
 	@FXML
 	public void onSaveAction(ActionEvent event)
 	{
+		if ((loader != null) && (loader.getFile() != null)) {
+			try {
+				// On sauvegarde dans le fichier courant : seuls les contacts modifiés sont écrits
+				loader.save(manager);
+				showMessage("Contacts saved successfully.");
+			} catch (IOException e) {
+				showMessage("Error: Unable to save contacts.");
+				e.printStackTrace();
+			}
+			return;
+		}
 		if (file != null) {
 			try {
 				// On Crée un FileChooser pour sélectionner l'emplacement de sauvegarde du fichier
@@ -567,6 +589,7 @@ public void onLoadAction(ActionEvent event) {
 					// On utiliser  Loader pour sauvegarder les contacts dans le fichier sélectionné
 					Loader loader = createLoader(selectedFile);
 					loader.save(contactSet);
+					this.loader = loader;
 					
 					// On met à jour le fichier actuel ainsi que la date de dernière modification
 					file = selectedFile;
@@ -607,6 +630,7 @@ public void onLoadAction(ActionEvent event) {
 				// On utilise le Loader pour sauvegarder les contacts dans le fichier sélectionné
 				Loader loader = createLoader(selectedFile);
 				loader.save(contactSet);
+				this.loader = loader;
 				
 				// Et enfin on met à jour le fichier actuel et la date de dernière modification
 				file = selectedFile;
@@ -811,6 +835,7 @@ public void onLoadAction(ActionEvent event) {
 		edition.set(false) ;
 		addButton.setDisable(false) ;
 		contactListView.setDisable(false) ;
+		manager.update(currentContact) ;
 		updateContactView(currentContact) ; }
 
 	/**
@@ -872,6 +897,7 @@ public void onLoadAction(ActionEvent event) {
 		contactListView.setDisable(false) ;
 		addButton.setDisable(false) ;
 		edition.set(false) ;
+		manager.update(currentContact) ;
 		updateContactView(currentContact) ; }
 
 	/**
@@ -915,6 +941,7 @@ public void onLoadAction(ActionEvent event) {
 			PhoneNumber number = pair.getValue();
 			logger.info("New Phone number: <" + name + ", " + number + ">");
 			currentContact.addPhoneNumber(name, number) ;
+			manager.update(currentContact) ;
 			updateContactView(currentContact) ;
 			edition.set(false) ;
 			deleteButton.setDisable(false) ;
@@ -978,6 +1005,7 @@ public void onLoadAction(ActionEvent event) {
 			String addressAfter = emailAddress[2] ;
 			URI email = URI.create(addressBefore + "@" + addressAfter) ;
 			currentContact.addEmail(name, email) ; } ) ;
+		manager.update(currentContact) ;
 		updateContactView(currentContact) ;
 		addButton.setDisable(false) ;
 		contactListView.setDisable(false) ;
@@ -1056,6 +1084,7 @@ public void onLoadAction(ActionEvent event) {
 			else {
 				address = new Address(Integer.parseInt(number), way, city, zipcode, locale) ; }
 			currentContact.addAddress(name, address) ; } ) ;
+		manager.update(currentContact) ;
 		updateContactView(currentContact) ;
 		contactListView.setDisable(false) ;
 		deleteButton.setDisable(false) ;
@@ -1108,6 +1137,7 @@ public void onLoadAction(ActionEvent event) {
 				alert.setHeaderText("URL invalide") ;
 				alert.setContentText("L'URL doit commencer par http:// ou https://") ;
 				alert.showAndWait() ; } } ) ;
+		manager.update(currentContact) ;
 		updateContactView(currentContact) ;
 		edition.set(false) ;
 		contactListView.setDisable(false) ;
@@ -1164,6 +1194,7 @@ public void onLoadAction(ActionEvent event) {
 			currentContact.addNote(name, note);
 		});
 		
+		manager.update(currentContact);
 		updateContactView(currentContact);
 		edition.set(false);
 		contactListView.setDisable(false);
@@ -1505,6 +1536,8 @@ public void onLoadAction(ActionEvent event) {
 			deleteButton.setDisable(false);
 			addButton.setDisable(false);
 
+			manager.update(currentContact);
+
 			// Refresh the contact view
 			updateContactView(currentContact);
 		}
@@ -1540,12 +1573,14 @@ public void onLoadAction(ActionEvent event) {
 	 * Callback triggered when filtering conditions changes either in
 	 * {@link #typeComboBox} or {@link #searchField}
 	 * @param event event associated with this action
+	 * @implNote Contacts are filtered by the {@link #manager} itself since its
+	 * filtering properties are bound to {@link #typeComboBox} and
+	 * {@link #searchField}, so this callback only logs the new conditions.
 	 */
 	public void onFilterPredicateChanged(ActionEvent event)
 	{
 		logger.info("Filter changed (type = " + typeComboBox.getValue().toString()
 		        + ", search = " + searchField.getText() + ")");
-		manager.setPredicate(typeComboBox.getValue(), searchField.getText());
 	}
 
 	/**
@@ -1679,7 +1714,7 @@ public void onLoadAction(ActionEvent event) {
 			{
 				if (image == null)
 				{
-					iconView.setImage(IconFactory.getIcon("contacts"));
+					iconView.setImage(IconFactory.getIcon("contacts", iconView.getFitWidth()));
 				}
 				PersonalContact pc = (PersonalContact) c;
 				if (pc.getCorporation() != null)
@@ -1710,7 +1745,7 @@ public void onLoadAction(ActionEvent event) {
 			{
 				if (image == null)
 				{
-					iconView.setImage(IconFactory.getIcon("building"));
+					iconView.setImage(IconFactory.getIcon("building", iconView.getFitWidth()));
 				}
 				CorporateContact cc = (CorporateContact) c;
 				Set<PersonalContact> ps = cc.getEmployees();
@@ -15,8 +15,11 @@ import javafx.scene.Scene;
 import javafx.scene.SceneAntialiasing;
 import javafx.scene.image.Image;
 import javafx.scene.layout.BorderPane;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
 import logger.LoggerFactory;
+import model.PhoneNumber;
+import utils.IconFactory;
 
 /**
  * JavaFX Contacts Manager Application main program
@@ -94,6 +97,16 @@ public class Main extends Application
 	@Override
 	public void start(Stage primaryStage) throws Exception
 	{
+		// --------------------------------------------------------------------
+		// Sets icons scale before Controller#initialize preloads its icons
+		// --------------------------------------------------------------------
+		IconFactory.setScale(Screen.getPrimary().getOutputScaleX());
+
+		// --------------------------------------------------------------------
+		// Exposes canonical phone numbers statistics through JMX
+		// --------------------------------------------------------------------
+		PhoneNumber.getFlyweightFactory().register("PhoneNumbers");
+
 		// --------------------------------------------------------------------
 		// Loads Scene from FXML
 		// --------------------------------------------------------------------
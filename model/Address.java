@@ -36,6 +36,13 @@ public class Address implements Comparable<Address>, Searchable<String>
 	 */
 	private Locale locale;
 
+	/**
+	 * Country name of {@link #locale} (in its own language).
+	 * Lazily computed by {@link #getCountry()} and reset when
+	 * {@link #locale} changes
+	 */
+	private String country;
+
 	/**
 	 * Complete Valued constructor
 	 * @param number the number in the way
@@ -166,6 +173,19 @@ public class Address implements Comparable<Address>, Searchable<String>
 		return this.locale;
 	}
 
+	/**
+	 * Country name (in its own language) from {@link #locale}
+	 * @return the country name of this address
+	 */
+	public String getCountry()
+	{
+		if (country == null)
+		{
+			country = locale.getDisplayCountry(locale);
+		}
+		return country;
+	}
+
 	/**
 	 * Number mutator
 	 * @param number the number to set
@@ -217,6 +237,7 @@ public class Address implements Comparable<Address>, Searchable<String>
 	{
 		if (!(locale == null) && !(locale.toString().isEmpty())){
 			this.locale = locale;
+			country = null;
 		}	
 	}
 
@@ -276,7 +297,7 @@ public class Address implements Comparable<Address>, Searchable<String>
 		if (!locale.equals(Locale.FRANCE))
 		{
 			sb.append('\n');
-			sb.append(locale.getDisplayCountry(locale));
+			sb.append(getCountry());
 		}
 
 		return sb.toString();
@@ -325,7 +346,7 @@ public class Address implements Comparable<Address>, Searchable<String>
 	 */
 	@Override
 	public boolean contains(String element) {
-		if (number.isPresent()) {
+		if (number.isPresent() && isNumber(element)) {
 			Integer value = null ;
 			try {
 				value = Integer.valueOf(element) ; } 
@@ -338,6 +359,20 @@ public class Address implements Comparable<Address>, Searchable<String>
 			return true ; }
 		if (zipCode.contains(element)) {
 			return true ; }
-		if (locale.getDisplayCountry(locale).contains(element)) {
+		if (getCountry().contains(element)) {
 			return true ; }
-		return false ; } }
\ No newline at end of file
+		return false ; }
+
+	/**
+	 * Check if an element only contains digits (and may therefore be parsed
+	 * as a {@link #number}) without having to catch parsing exceptions.
+	 * @param element the element to check
+	 * @return true if element is a non empty sequence of digits
+	 */
+	private static boolean isNumber(String element) {
+		if (element.isEmpty()) {
+			return false ; }
+		for (int i = 0; i < element.length(); i++) {
+			if (!Character.isDigit(element.charAt(i))) {
+				return false ; } }
+		return true ; } }
\ No newline at end of file
@@ -0,0 +1,949 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Binary Loader reading or writing a {@link Set} of {@link Contact} from or to
+ * a compact binary {@link File}, read through a {@link MappedByteBuffer} so
+ * contacts are decoded without any intermediate text parsing.
+ * File layout (all numbers are big endian):
+ * <pre>
+ * header     : magic (int) version (short) reserved (short) date (long)
+ *              contacts count (int) offset table position (long)
+ *              strings count (int) string dictionary position (long)
+ * records    : for each contact, record length (int) followed by record
+ * offsets    : position (long) of each record
+ * dictionary : for each string, UTF-8 length (int) followed by UTF-8 bytes
+ * </pre>
+ * Records refer to strings by their index in the dictionary (or -1 for none)
+ * and to other contacts by their index in the offset table:
+ * <pre>
+ * record     : type (byte) name (string)
+ *              [personal] first name (string) corporation (contact)
+ *              [corporate] employees count (int) employees (contact...)
+ *              image (string)
+ *              phones count (int) [name (string) number (string)]...
+ *              emails count (int) [name (string) uri (string)]...
+ *              addresses count (int) [name (string) number (int, 0 if none)
+ *                  way (string) zipcode (string) city (string)
+ *                  locale language tag (string)]...
+ *              links count (int) [name (string) uri (string)]...
+ *              notes count (int) [name (string) date (long)
+ *                  content (string)]...
+ * </pre>
+ * @see #fromJSON(File, File)
+ * @see #toJSON(File, File)
+ */
+public class BinaryLoader extends Loader
+{
+	/**
+	 * Magic number starting binary contacts files ("CMGR")
+	 */
+	public static final int Magic = 0x434D4752;
+
+	/**
+	 * Current version of the binary format
+	 */
+	public static final short Version = 1;
+
+	/**
+	 * Size (in bytes) of the header
+	 */
+	private static final int HeaderSize = 40;
+
+	/**
+	 * Record type of {@link PersonalContact}s
+	 */
+	private static final byte PersonalType = 0;
+
+	/**
+	 * Record type of {@link CorporateContact}s
+	 */
+	private static final byte CorporateType = 1;
+
+	/**
+	 * Reference to no string or no contact
+	 */
+	private static final int None = -1;
+
+	/**
+	 * Whether {@link #load()} should provide stub contacts whose details are
+	 * only decoded when first accessed
+	 */
+	private boolean lazy;
+
+	/**
+	 * Constructor with provided file
+	 * @param file the file to use
+	 */
+	public BinaryLoader(File file)
+	{
+		super(file);
+		lazy = false;
+	}
+
+	/**
+	 * Default constructor
+	 */
+	public BinaryLoader()
+	{
+		this(null);
+	}
+
+	/**
+	 * Lazy loading mode access
+	 * @return true if {@link #load()} provides stub contacts whose details are
+	 * decoded on first access, false if all contacts are fully decoded by
+	 * {@link #load()}
+	 */
+	public boolean isLazy()
+	{
+		return lazy;
+	}
+
+	/**
+	 * Set lazy loading mode.
+	 * In lazy mode, {@link #load()} only decodes names and relations of
+	 * contacts (used for sorting and displaying them) and provides stub
+	 * contacts whose remaining details are decoded from the mapped file when
+	 * first accessed (e.g. when a contact is displayed or searched), so
+	 * loading time does not depend on the size of contacts details.
+	 * @param lazy true to load stub contacts, false to fully decode contacts
+	 * @see Contact#isResolved()
+	 */
+	public void setLazy(boolean lazy)
+	{
+		this.lazy = lazy;
+	}
+
+	/**
+	 * Converts a JSON contacts file into a binary contacts file
+	 * @param jsonFile the JSON file to read
+	 * @param binaryFile the binary file to write
+	 * @throws ParseException whenever a parse error occurs in JSON file
+	 * @throws IOException if a file can't be read or written
+	 */
+	public static void fromJSON(File jsonFile, File binaryFile)
+	    throws ParseException,
+	    IOException
+	{
+		new BinaryLoader(binaryFile).save(new JSONLoader(jsonFile).load());
+	}
+
+	/**
+	 * Converts a binary contacts file into a JSON contacts file
+	 * @param binaryFile the binary file to read
+	 * @param jsonFile the JSON file to write
+	 * @throws ParseException whenever a parse error occurs in binary file
+	 * @throws IOException if a file can't be read or written
+	 */
+	public static void toJSON(File binaryFile, File jsonFile)
+	    throws ParseException,
+	    IOException
+	{
+		new JSONLoader(jsonFile).save(new BinaryLoader(binaryFile).load());
+	}
+
+	/**
+	 * Loads a {@link Set} of {@link Contact} from {@link #file}
+	 * @return the set of contacts loaded from {@link #file} (as stubs if
+	 * this loader {@link #isLazy() is lazy})
+	 * @throws FileNotFoundException if file can't be opened
+	 * @throws ParseException if file is not a binary contacts file of a
+	 * supported version or is corrupted
+	 * @throws NullPointerException if internal {@link #file} is not set yet
+	 * @throws IOException if file can't be read
+	 * @implNote In lazy mode, the mapping of {@link #file} is kept by stubs
+	 * until all of them are resolved or discarded. Corrupted details are
+	 * then reported by {@link Contact#resolve()}.
+	 * Compressed files can't be mapped: they are decompressed in memory
+	 * first.
+	 */
+	@Override
+	public Set<Contact> load()
+	    throws FileNotFoundException,
+	    ParseException,
+	    NullPointerException,
+	    IOException
+	{
+		Objects.requireNonNull(file);
+		if (!file.exists())
+		{
+			throw new FileNotFoundException(file.getPath());
+		}
+
+		try
+		{
+			try (InputStream input = openInput())
+			{
+				if (compression != Compression.NONE)
+				{
+					return decode(new MappedRecords(ByteBuffer.wrap(input.readAllBytes()), file));
+				}
+			}
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+			{
+				if (channel.size() > Integer.MAX_VALUE)
+				{
+					throw new IOException(file + " is too large to be mapped");
+				}
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				return decode(new MappedRecords(buffer, file));
+			}
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e)
+		{
+			throw new ParseException("corrupted binary contacts file " + file, 0);
+		}
+	}
+
+	/**
+	 * Decodes contacts (or stubs) from a mapped binary contacts file
+	 * @param records the records of the mapped file
+	 * @return the decoded contacts
+	 * @throws ParseException if a record is invalid
+	 * @throws BufferUnderflowException if file is truncated
+	 */
+	private Set<Contact> decode(MappedRecords records) throws ParseException
+	{
+		date = new Date(records.date);
+		int count = records.count;
+		Contact[] contacts = new Contact[count];
+		int[] corporations = new int[count];
+		int[][] employees = new int[count][];
+		for (int i = 0; i < count; i++)
+		{
+			contacts[i] = (lazy ?
+			    records.stub(i, corporations, employees) :
+			    records.decode(i, corporations, employees));
+		}
+
+		/*
+		 * Relations
+		 */
+		Set<Contact> result = new TreeSet<>();
+		for (int i = 0; i < count; i++)
+		{
+			if (corporations[i] != None)
+			{
+				((PersonalContact) contacts[i]).setCorporation(corporate(contacts, corporations[i]));
+			}
+			if (employees[i] != null)
+			{
+				CorporateContact corporation = (CorporateContact) contacts[i];
+				for (int employee : employees[i])
+				{
+					corporation.add(personal(contacts, employee));
+				}
+			}
+			result.add(contacts[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Decodes the first fields of a record: type, names and relations
+	 * @param buffer the buffer positioned at the start of the record
+	 * @param records the records providing strings
+	 * @param index the index of this record
+	 * @param corporations the corporation index of each personal contact to
+	 * complete (or null to ignore relations)
+	 * @param employees the employees indices of each corporate contact to
+	 * complete (or null to ignore relations)
+	 * @param resolver the resolver of the contact details if a stub contact
+	 * should be created (or null to create a contact without details)
+	 * @return a contact of the record type with the record names
+	 * @throws ParseException if record type is unknown
+	 */
+	private static Contact decodeNames(ByteBuffer buffer,
+	                                   MappedRecords records,
+	                                   int index,
+	                                   int[] corporations,
+	                                   int[][] employees,
+	                                   Contact.Resolver resolver)
+	    throws ParseException
+	{
+		byte type = buffer.get();
+		String name = records.string(buffer);
+		if (type == PersonalType)
+		{
+			String firstName = records.string(buffer);
+			int corporation = buffer.getInt();
+			if (corporations != null)
+			{
+				corporations[index] = corporation;
+			}
+			if (resolver != null)
+			{
+				return new PersonalContact(firstName, name, resolver);
+			}
+			return new PersonalContact(firstName, name, null, null, null, null, null, null);
+		}
+		if (type == CorporateType)
+		{
+			int[] indices = new int[buffer.getInt()];
+			for (int i = 0; i < indices.length; i++)
+			{
+				indices[i] = buffer.getInt();
+			}
+			if (corporations != null)
+			{
+				corporations[index] = None;
+				employees[index] = indices;
+			}
+			if (resolver != null)
+			{
+				return new CorporateContact(name, resolver);
+			}
+			return new CorporateContact(name, null, null, null, null, null);
+		}
+		throw new ParseException("unknown contact type " + type, index);
+	}
+
+	/**
+	 * Decodes the details of a contact record (following its names)
+	 * @param buffer the buffer positioned after the names of the record
+	 * @param records the records providing strings
+	 * @param contact the contact to complete with decoded details
+	 * @return the completed contact
+	 * @throws ParseException if details are invalid
+	 */
+	private static Contact decodeDetails(ByteBuffer buffer,
+	                                     MappedRecords records,
+	                                     Contact contact)
+	    throws ParseException
+	{
+		/*
+		 * Image path: as in JSONLoader, images are loaded when first
+		 * displayed
+		 */
+		String imagePath = records.string(buffer);
+		if (imagePath != null)
+		{
+			contact.setImage(imageURI(imagePath));
+		}
+
+		int phones = buffer.getInt();
+		for (int i = 0; i < phones; i++)
+		{
+			String key = records.string(buffer);
+			contact.addPhoneNumber(key, PhoneNumber.valueOf(records.string(buffer)));
+		}
+
+		int emails = buffer.getInt();
+		for (int i = 0; i < emails; i++)
+		{
+			String key = records.string(buffer);
+			contact.addEmail(key, uri(records.string(buffer)));
+		}
+
+		int addresses = buffer.getInt();
+		for (int i = 0; i < addresses; i++)
+		{
+			String key = records.string(buffer);
+			int number = buffer.getInt();
+			String way = records.string(buffer);
+			String zipCode = records.string(buffer);
+			String city = records.string(buffer);
+			Locale locale = Locale.forLanguageTag(records.string(buffer));
+			contact.addAddress(key,
+			                   number > 0 ?
+			                       new Address(number, way, city, zipCode, locale) :
+			                       new Address(way, city, zipCode, locale));
+		}
+
+		int links = buffer.getInt();
+		for (int i = 0; i < links; i++)
+		{
+			String key = records.string(buffer);
+			contact.addLink(key, uri(records.string(buffer)));
+		}
+
+		int notes = buffer.getInt();
+		for (int i = 0; i < notes; i++)
+		{
+			String key = records.string(buffer);
+			Date noteDate = new Date(buffer.getLong());
+			contact.addNote(key, new Note(records.string(buffer), noteDate));
+		}
+
+		return contact;
+	}
+
+	/**
+	 * Saves provided {@link Set} of {@link Contact} to {@link #file}
+	 * @param set the set of contacts to save to {@link #file}
+	 * @throws NullPointerException if internal {@link #file} is null
+	 * @throws IOException if writing or replacing {@link #file} fails, in
+	 * which case {@link #file} is left unchanged.
+	 * @implNote The file is written to a temporary file next to {@link #file}
+	 * which is synced to disk and then moved over {@link #file} (keeping its
+	 * permissions). Since the header is written last, compressed files are
+	 * obtained by compressing this temporary file into another one.
+	 */
+	@Override
+	public void save(Set<Contact> set) throws NullPointerException, IOException
+	{
+		Objects.requireNonNull(file);
+		List<Contact> contacts = new ArrayList<>(set);
+		Map<Contact, Integer> indices = new IdentityHashMap<>();
+		for (Contact contact : contacts)
+		{
+			indices.put(contact, indices.size());
+		}
+		Map<String, Integer> dictionary = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+
+		Path target = file.toPath().toAbsolutePath();
+		Path temp = createTemp(target);
+		try
+		{
+			try (FileOutputStream output = new FileOutputStream(temp.toFile()))
+			{
+				DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+				data.write(new byte[HeaderSize]);
+				/*
+				 * DataOutputStream#size saturates at Integer.MAX_VALUE, so
+				 * the position is tracked here
+				 */
+				long written = HeaderSize;
+
+				/*
+				 * Records
+				 */
+				long[] offsets = new long[contacts.size()];
+				ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+				DataOutputStream record = new DataOutputStream(recordBytes);
+				for (int i = 0; i < offsets.length; i++)
+				{
+					offsets[i] = written;
+					recordBytes.reset();
+					encodeRecord(record, contacts.get(i), indices, dictionary, strings);
+					written = advance(written, Integer.BYTES + recordBytes.size());
+					data.writeInt(recordBytes.size());
+					recordBytes.writeTo(data);
+				}
+
+				/*
+				 * Offset table
+				 */
+				long offsetsPosition = written;
+				written = advance(written, (long) Long.BYTES * offsets.length);
+				for (long offset : offsets)
+				{
+					data.writeLong(offset);
+				}
+
+				/*
+				 * String dictionary
+				 */
+				long stringsPosition = written;
+				for (String string : strings)
+				{
+					byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+					written = advance(written, Integer.BYTES + bytes.length);
+					data.writeInt(bytes.length);
+					data.write(bytes);
+				}
+				data.flush();
+
+				/*
+				 * Header
+				 */
+				date = Date.from(Instant.now());
+				ByteBuffer header = ByteBuffer.allocate(HeaderSize);
+				header.putInt(Magic);
+				header.putShort(Version);
+				header.putShort((short) 0);
+				header.putLong(date.getTime());
+				header.putInt(offsets.length);
+				header.putLong(offsetsPosition);
+				header.putInt(strings.size());
+				header.putLong(stringsPosition);
+				header.flip();
+				FileChannel channel = output.getChannel();
+				long position = 0;
+				while (header.hasRemaining())
+				{
+					position += channel.write(header, position);
+				}
+				if (compression == Compression.NONE)
+				{
+					channel.force(true);
+				}
+			}
+			if (compression != Compression.NONE)
+			{
+				Path uncompressed = temp;
+				temp = createTemp(target);
+				try (InputStream input = Files.newInputStream(uncompressed);
+				     FileOutputStream output = new FileOutputStream(temp.toFile());
+				     OutputStream compressed = compress(new BufferedOutputStream(output)))
+				{
+					input.transferTo(compressed);
+					finish(compressed);
+					output.getFD().sync();
+				}
+				finally
+				{
+					Files.deleteIfExists(uncompressed);
+				}
+			}
+			replace(temp, target);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Error writing " + file);
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Counts bytes about to be written by {@link #save(Set)}
+	 * @param position the number of bytes written so far
+	 * @param length the number of bytes about to be written
+	 * @return the number of bytes written after these bytes
+	 * @throws IOException if the file would grow beyond the
+	 * {@link Integer#MAX_VALUE} bytes which can be mapped by {@link #load()}
+	 */
+	private long advance(long position, long length) throws IOException
+	{
+		long next = position + length;
+		if (next > Integer.MAX_VALUE)
+		{
+			throw new IOException("too many contacts to write " + file);
+		}
+		return next;
+	}
+
+	/**
+	 * Encodes a single contact record
+	 * @param record the output to write the record to
+	 * @param contact the contact to encode
+	 * @param indices the index of each saved contact
+	 * @param dictionary the index of each string in the dictionary
+	 * @param strings the strings of the dictionary
+	 * @throws IOException if record can't be written
+	 */
+	private static void encodeRecord(DataOutputStream record,
+	                                 Contact contact,
+	                                 Map<Contact, Integer> indices,
+	                                 Map<String, Integer> dictionary,
+	                                 List<String> strings)
+	    throws IOException
+	{
+		if (contact instanceof PersonalContact)
+		{
+			PersonalContact pc = (PersonalContact) contact;
+			record.writeByte(PersonalType);
+			record.writeInt(reference(pc.getName(), dictionary, strings));
+			record.writeInt(reference(pc.getFirstName(), dictionary, strings));
+			Integer corporation = indices.get(pc.getCorporation());
+			record.writeInt(corporation == null ? None : corporation);
+		}
+		else
+		{
+			CorporateContact cc = (CorporateContact) contact;
+			record.writeByte(CorporateType);
+			record.writeInt(reference(cc.getName(), dictionary, strings));
+			List<Integer> employees = new ArrayList<>();
+			for (PersonalContact employee : cc.getEmployees())
+			{
+				Integer employeeIndex = indices.get(employee);
+				if (employeeIndex != null)
+				{
+					employees.add(employeeIndex);
+				}
+			}
+			record.writeInt(employees.size());
+			for (int employee : employees)
+			{
+				record.writeInt(employee);
+			}
+		}
+
+		URI imagePath = contact.getImagePath();
+		record.writeInt(reference(imagePath == null ? null : imagePath.getSchemeSpecificPart(),
+		                          dictionary,
+		                          strings));
+
+		Set<String> keys = contact.getPhoneNumberKeySet();
+		record.writeInt(keys.size());
+		for (String key : keys)
+		{
+			record.writeInt(reference(key, dictionary, strings));
+			record.writeInt(reference(contact.getPhoneNumber(key).toString(), dictionary, strings));
+		}
+
+		keys = contact.getEmailKeySet();
+		record.writeInt(keys.size());
+		for (String key : keys)
+		{
+			record.writeInt(reference(key, dictionary, strings));
+			record.writeInt(reference(contact.getEmail(key).toString(), dictionary, strings));
+		}
+
+		keys = contact.getAddressKeySet();
+		record.writeInt(keys.size());
+		for (String key : keys)
+		{
+			Address address = contact.getAddress(key);
+			Optional<Integer> number = address.getNumber();
+			record.writeInt(reference(key, dictionary, strings));
+			record.writeInt(number.isPresent() ? number.get() : 0);
+			record.writeInt(reference(address.getWay(), dictionary, strings));
+			record.writeInt(reference(address.getZipCode(), dictionary, strings));
+			record.writeInt(reference(address.getCity(), dictionary, strings));
+			record.writeInt(reference(address.getLocale().toLanguageTag(), dictionary, strings));
+		}
+
+		keys = contact.getLinksKeySet();
+		record.writeInt(keys.size());
+		for (String key : keys)
+		{
+			record.writeInt(reference(key, dictionary, strings));
+			record.writeInt(reference(contact.getLink(key).toString(), dictionary, strings));
+		}
+
+		keys = contact.getNotesKeySet();
+		record.writeInt(keys.size());
+		for (String key : keys)
+		{
+			Note note = contact.getNote(key);
+			record.writeInt(reference(key, dictionary, strings));
+			record.writeLong(note.getDate().getTime());
+			record.writeInt(reference(note.getContent(), dictionary, strings));
+		}
+	}
+
+	/**
+	 * Index of a string in the dictionary (added if necessary)
+	 * @param string the string to refer to (or null)
+	 * @param dictionary the index of each string in the dictionary
+	 * @param strings the strings of the dictionary
+	 * @return the index of this string in the dictionary (or {@link #None}
+	 * if string is null)
+	 */
+	private static int reference(String string,
+	                             Map<String, Integer> dictionary,
+	                             List<String> strings)
+	{
+		if (string == null)
+		{
+			return None;
+		}
+		Integer index = dictionary.get(string);
+		if (index == null)
+		{
+			index = strings.size();
+			dictionary.put(string, index);
+			strings.add(string);
+		}
+		return index;
+	}
+
+	/**
+	 * Converts a position read from file into a buffer position
+	 * @param position the position read from file
+	 * @return the position as an int
+	 * @throws IndexOutOfBoundsException if position is out of int range
+	 */
+	private static int position(long position)
+	{
+		if ((position < 0) || (position > Integer.MAX_VALUE))
+		{
+			throw new IndexOutOfBoundsException("invalid position " + position);
+		}
+		return (int) position;
+	}
+
+	/**
+	 * Parses a stored URI
+	 * @param uriString the URI string
+	 * @return the URI
+	 * @throws ParseException if uriString is not a valid URI
+	 */
+	private static URI uri(String uriString) throws ParseException
+	{
+		try
+		{
+			return new URI(uriString);
+		}
+		catch (URISyntaxException | NullPointerException e)
+		{
+			throw new ParseException("invalid URI " + uriString, 0);
+		}
+	}
+
+	/**
+	 * Personal contact referred by index
+	 * @param contacts the decoded contacts
+	 * @param index the index of the personal contact
+	 * @return the personal contact
+	 * @throws ParseException if index does not refer to a personal contact
+	 */
+	private static PersonalContact personal(Contact[] contacts, int index)
+	    throws ParseException
+	{
+		if ((index < 0) || (index >= contacts.length)
+		    || !(contacts[index] instanceof PersonalContact))
+		{
+			throw new ParseException("invalid employee reference " + index, 0);
+		}
+		return (PersonalContact) contacts[index];
+	}
+
+	/**
+	 * Corporate contact referred by index
+	 * @param contacts the decoded contacts
+	 * @param index the index of the corporate contact
+	 * @return the corporate contact
+	 * @throws ParseException if index does not refer to a corporate contact
+	 */
+	private static CorporateContact corporate(Contact[] contacts, int index)
+	    throws ParseException
+	{
+		if ((index < 0) || (index >= contacts.length)
+		    || !(contacts[index] instanceof CorporateContact))
+		{
+			throw new ParseException("invalid corporation reference " + index, 0);
+		}
+		return (CorporateContact) contacts[index];
+	}
+
+	/**
+	 * Records of a mapped binary contacts file: header, offsets table and
+	 * string dictionary, with strings decoded once on demand.
+	 * @implNote Each decoding works on its own view of the mapped buffer, so
+	 * records can be decoded concurrently (e.g. when stubs are resolved by a
+	 * parallel search).
+	 */
+	private static class MappedRecords
+	{
+		/**
+		 * The mapped file (whose position is never changed after
+		 * construction)
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * The mapped file (for error messages)
+		 */
+		private final File file;
+
+		/**
+		 * Date of the mapped file (in milliseconds)
+		 */
+		private final long date;
+
+		/**
+		 * Number of records
+		 */
+		private final int count;
+
+		/**
+		 * Position of the offsets table
+		 */
+		private final int offsetsPosition;
+
+		/**
+		 * Position of each string of the dictionary
+		 */
+		private final int[] stringPositions;
+
+		/**
+		 * Strings of the dictionary decoded so far
+		 * @implNote Racy writes are harmless since strings are immutable and
+		 * decoded identically by all threads
+		 */
+		private final String[] strings;
+
+		/**
+		 * Constructor reading header and locating strings of the dictionary
+		 * @param buffer the buffer containing the whole file
+		 * @param file the mapped file
+		 * @throws ParseException if buffer does not contain a binary
+		 * contacts file of a supported version
+		 * @throws BufferUnderflowException if buffer is truncated
+		 * @throws IllegalArgumentException if a position is out of buffer
+		 */
+		public MappedRecords(ByteBuffer buffer, File file) throws ParseException
+		{
+			this.buffer = buffer;
+			this.file = file;
+			if ((buffer.remaining() < HeaderSize) || (buffer.getInt() != Magic))
+			{
+				throw new ParseException(file + " is not a binary contacts file", 0);
+			}
+			short version = buffer.getShort();
+			if (version != Version)
+			{
+				throw new ParseException("unsupported binary contacts file version " + version, 4);
+			}
+			buffer.getShort(); // reserved
+			date = buffer.getLong();
+			count = buffer.getInt();
+			offsetsPosition = position(buffer.getLong());
+			int stringsCount = buffer.getInt();
+			int stringsPosition = position(buffer.getLong());
+			if ((count < 0) || (stringsCount < 0))
+			{
+				throw new ParseException("corrupted binary contacts file " + file, 0);
+			}
+
+			stringPositions = new int[stringsCount];
+			strings = new String[stringsCount];
+			buffer.position(stringsPosition);
+			for (int i = 0; i < stringsCount; i++)
+			{
+				stringPositions[i] = buffer.position();
+				int length = buffer.getInt();
+				buffer.position(buffer.position() + length);
+			}
+		}
+
+		/**
+		 * Reads a string reference and resolves it in the dictionary
+		 * @param in the buffer to read the reference from
+		 * @return the referred string (or null)
+		 * @throws IndexOutOfBoundsException if reference is invalid
+		 */
+		public String string(ByteBuffer in)
+		{
+			int index = in.getInt();
+			if (index == None)
+			{
+				return null;
+			}
+			String string = strings[index];
+			if (string == null)
+			{
+				ByteBuffer view = buffer.duplicate();
+				view.position(stringPositions[index]);
+				byte[] bytes = new byte[view.getInt()];
+				view.get(bytes);
+				string = new String(bytes, StandardCharsets.UTF_8);
+				strings[index] = string;
+			}
+			return string;
+		}
+
+		/**
+		 * View of a record
+		 * @param index the index of the record
+		 * @return a new view of the buffer positioned at the start of this
+		 * record
+		 * @throws IndexOutOfBoundsException if index is invalid
+		 */
+		private ByteBuffer record(int index)
+		{
+			if ((index < 0) || (index >= count))
+			{
+				throw new IndexOutOfBoundsException("invalid record " + index);
+			}
+			ByteBuffer view = buffer.duplicate();
+			view.position(offsetsPosition + (index * Long.BYTES));
+			view.position(position(view.getLong()) + Integer.BYTES);
+			return view;
+		}
+
+		/**
+		 * Fully decodes a record
+		 * @param index the index of the record
+		 * @param corporations the corporation index of each personal contact
+		 * to complete (or null to ignore relations)
+		 * @param employees the employees indices of each corporate contact to
+		 * complete (or null to ignore relations)
+		 * @return the decoded contact (without relations)
+		 * @throws ParseException if record is invalid
+		 */
+		public Contact decode(int index, int[] corporations, int[][] employees)
+		    throws ParseException
+		{
+			ByteBuffer view = record(index);
+			Contact contact = decodeNames(view, this, index, corporations, employees, null);
+			return decodeDetails(view, this, contact);
+		}
+
+		/**
+		 * Decodes names and relations of a record into a stub contact whose
+		 * details will be decoded by {@link #resolve(Contact, int)}
+		 * @param index the index of the record
+		 * @param corporations the corporation index of each personal contact
+		 * to complete
+		 * @param employees the employees indices of each corporate contact to
+		 * complete
+		 * @return the stub contact (without relations)
+		 * @throws ParseException if record is invalid
+		 */
+		public Contact stub(int index, int[] corporations, int[][] employees)
+		    throws ParseException
+		{
+			return decodeNames(record(index),
+			                   this,
+			                   index,
+			                   corporations,
+			                   employees,
+			                   (Contact stub) -> resolve(stub, index));
+		}
+
+		/**
+		 * Decodes the details of a stub contact
+		 * @param stub the stub contact
+		 * @param index the index of the stub record
+		 * @return a contact holding the details of the stub
+		 * @throws IllegalStateException if record is invalid or does not
+		 * match stub
+		 */
+		private Contact resolve(Contact stub, int index) throws IllegalStateException
+		{
+			try
+			{
+				Contact details = decode(index, null, null);
+				if (details.getType() != stub.getType())
+				{
+					throw new ParseException("unexpected contact type", index);
+				}
+				return details;
+			}
+			catch (ParseException | BufferUnderflowException | IndexOutOfBoundsException
+			    | IllegalArgumentException e)
+			{
+				System.err.println("Error decoding " + stub + " from " + file);
+				throw new IllegalStateException("corrupted record " + index + " in " + file, e);
+			}
+		}
+	}
+}
@@ -1,10 +1,12 @@
 package model;
 
 import java.net.URI;
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import javafx.scene.image.Image;
@@ -23,13 +25,9 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	protected String name;
 
 	/**
-	 * Logo or Icon for this contact
-	 * (Using JavaFx images)
-	 */
-	protected Image image;
-
-	/**
-	 * URI path to file used to create {@link #image}
+	 * URI path to the logo or icon of this contact.
+	 * The image itself is only loaded by {@link #getImage()}
+	 * @see ImageCache
 	 */
 	protected URI imagePath;
 
@@ -64,6 +62,57 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	protected Map<String, Note> notes;
 
+	/**
+	 * Separator between texts in {@link #searchText}
+	 */
+	private static final char SearchTextSeparator = '\u0000';
+
+	/**
+	 * Normalized text searched by {@link #contains(String)}: all
+	 * {@link #searchableTexts()} {@link #fold(String) folded} and separated
+	 * by {@link #SearchTextSeparator}.
+	 * @implNote Lazily built by {@link #getSearchText()} and reset by
+	 * {@link #modified()} whenever a searchable text changes.
+	 */
+	private volatile String searchText;
+
+	/**
+	 * Number of modifications of this contact, so loaders can tell whether
+	 * this contact changed since they last saved it.
+	 * @implNote incremented by {@link #modified()} which is called by every
+	 * mutator. Volatile so {@link #getSearchText()} can detect modifications
+	 * made by another thread while it builds {@link #searchText}.
+	 */
+	private volatile long modifications;
+
+	/**
+	 * Resolver providing the details of this contact when this contact is a
+	 * stub (or null when this contact is complete)
+	 * @implNote Reset by {@link #resolve()} once details have been obtained
+	 */
+	private volatile Resolver resolver;
+
+	/**
+	 * Source of the details of stub contacts.
+	 * Stub contacts are created with their names only (so they can be sorted
+	 * and displayed) by loaders which can decode the remaining details of a
+	 * contact later on.
+	 * @see Contact#Contact(String, Resolver)
+	 */
+	@FunctionalInterface
+	public static interface Resolver
+	{
+		/**
+		 * Decodes the details of a stub contact
+		 * @param stub the stub contact to decode
+		 * @return a contact of the same type as stub holding the details of
+		 * stub (image, phone numbers, addresses, emails, links and notes).
+		 * Its names and relations to other contacts are ignored.
+		 * @throws IllegalStateException if details can't be decoded
+		 */
+		public Contact resolve(Contact stub) throws IllegalStateException;
+	}
+
 	/**
 	 * Valued Constructor
 	 * @param name the name of this contact
@@ -82,11 +131,11 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	                  Note note)
 	{
 		this.name = new String(name);
-		this.imagePath = imagePath;
 		if (imagePath != null)
 		{
-			image = new Image(this.imagePath.toString());
+			ImageCache.validate(imagePath);
 		}
+		this.imagePath = imagePath;
 		phoneNumbers = new HashMap<>();
 		addresses = new HashMap<>();
 		emails = new HashMap<>();
@@ -112,12 +161,29 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 		}
 	}
 
+	/**
+	 * Stub constructor.
+	 * Creates a contact whose details will only be obtained from the
+	 * provided resolver when first accessed, so loaders can provide large
+	 * sets of contacts without decoding all of them.
+	 * @param name the name of this contact
+	 * @param resolver the resolver of this contact's details
+	 * @throws NullPointerException if name or resolver is null
+	 * @implNote {@link #imagePath} and all maps are left null until
+	 * {@link #resolve()}
+	 */
+	protected Contact(String name, Resolver resolver)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.resolver = Objects.requireNonNull(resolver);
+	}
+
 	/**
 	 * Copy constructor
 	 * @param c the contact to copy
 	 */
 	protected Contact(Contact c) {
-		this(c.name, c.imagePath, null, null, null, null) ; 
+		this(c.name, c.getImagePath(), null, null, null, null) ; 
 		for (Map.Entry<String, PhoneNumber> entry : c.phoneNumbers.entrySet()) {
 			phoneNumbers.put(entry.getKey(), entry.getValue()) ; }
 		for (Map.Entry<String, Address> entry : c.addresses.entrySet()) {
@@ -141,16 +207,24 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	public void setName(String name){
 		if (!(name == null) && !(name.isEmpty())){
 			this.name = name;
+			modified();
 		}
 	}
 
 	/**
 	 * Image accessor
-	 * @return the image
+	 * @return the image loaded from {@link #imagePath} or null if there is no
+	 * image
+	 * @implNote the image is obtained from {@link ImageCache}, which loads it
+	 * in background and downscaled to the size it is displayed with on first
+	 * request, so contacts can be created or loaded without decoding their
+	 * images.
 	 */
 	public Image getImage()
 	{
-		return image;
+		resolve();
+		URI path = imagePath;
+		return (path == null) ? null : ImageCache.getImage(path);
 	}
 
 	/**
@@ -159,6 +233,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public URI getImagePath()
 	{
+		resolve();
 		return imagePath;
 	}
 
@@ -167,12 +242,15 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * @param imageURI the URI of the image to set
 	 * @throws NullPointerException if provided {@link URI} is null
 	 * @throws IllegalArgumentException if provided {@link URI} is invalid
+	 * @see ImageCache#validate(URI)
 	 */
 	public void setImage(URI imageURI) throws NullPointerException, IllegalArgumentException {
+		resolve() ;
 		if (imageURI == null) {
 			throw new NullPointerException() ; }
+		ImageCache.validate(imageURI) ;
 		this.imagePath = imageURI ;
-		this.image = new Image(imagePath.toString()) ; }
+		modified() ; }
 
 	/**
 	 * Get the phone number designated by the provided key (iff it exist)
@@ -181,6 +259,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public PhoneNumber getPhoneNumber(String key)
 	{
+		resolve();
 		return phoneNumbers.get(key);
 	}
 
@@ -191,6 +270,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Set<String> getPhoneNumberKeySet()
 	{
+		resolve();
 		return phoneNumbers.keySet();
 	}
 
@@ -203,6 +283,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public boolean addPhoneNumber(String title, PhoneNumber number)
 	{
+		resolve();
 		if (phoneNumbers.containsKey(title))
 		{
 			System.err
@@ -211,6 +292,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 		}
 
 		phoneNumbers.put(title, number);
+		modified();
 		return true;
 	}
 
@@ -222,12 +304,14 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public boolean removePhoneNumber(String key)
 	{
+		resolve();
 		if (!phoneNumbers.containsKey(key))
 		{
 			return false;
 		}
 
 		phoneNumbers.remove(key);
+		modified();
 		return true;
 	}
 
@@ -239,6 +323,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Address getAddress(String title)
 	{
+		resolve();
 		return addresses.get(title);
 	}
 
@@ -249,6 +334,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Set<String> getAddressKeySet()
 	{
+		resolve();
 		return addresses.keySet();
 	}
 
@@ -260,11 +346,13 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * {@link #addresses} and this new address has been added
 	 */
 	public boolean addAddress(String title, Address address) {
+		resolve() ;
 		if (addresses.containsKey(title)) {
 			System.err
 			    .println("Key " + title + " already exist in phone numbers") ;
 			return false ; }
 		addresses.put(title, address) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -274,10 +362,12 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * if there was no such address.
 	 */
 	public boolean removeAddress(String title) {
+		resolve() ;
 		if (!addresses.containsKey((title))) {
 			System.err.println("Key" + title + " doesn't exist in addresses") ;
 			return false ; }
 		addresses.remove(title) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -288,6 +378,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public URI getEmail(String title)
 	{
+		resolve();
 		return emails.get(title);
 	}
 
@@ -298,6 +389,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Set<String> getEmailKeySet()
 	{
+		resolve();
 		return emails.keySet();
 	}
 
@@ -309,11 +401,13 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * {@link #emails} and this new email has been added
 	 */
 	public boolean addEmail(String title, URI email) {
+		resolve() ;
 		if (emails.containsKey(title)) {
 			System.err
 			    .println("Key " + title + " already exist in emails") ;
 			return false ; }
 		emails.put(title, email) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -323,10 +417,12 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * if there was no such email.
 	 */
 	public boolean removeEmail(String title) {
+		resolve() ;
 		if (!emails.containsKey((title))) {
 			System.err.println("Key" + title + " doesn't exist in emails") ;
 			return false ; }
 		emails.remove(title) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -337,6 +433,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public URI getLink(String title)
 	{
+		resolve();
 		return links.get(title);
 	}
 
@@ -347,6 +444,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Set<String> getLinksKeySet()
 	{
+		resolve();
 		return links.keySet();
 	}
 
@@ -358,11 +456,13 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * {@link #links} and this new link has been added
 	 */
 	public boolean addLink(String title, URI link) {
+		resolve() ;
 		if (links.containsKey(title)) {
 			System.err
 			    .println("Key " + title + " already exist in links") ;
 			return false ; }
 		links.put(title, link) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -372,10 +472,12 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * if there was no such link.
 	 */
 	public boolean removeLink(String title) {
+		resolve() ;
 		if (!links.containsKey((title))) {
 			System.err.println("Key" + title + " doesn't exist in links") ;
 			return false ; }
 		links.remove(title) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -386,6 +488,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Note getNote(String title)
 	{
+		resolve();
 		return notes.get(title);
 	}
 
@@ -396,6 +499,7 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 */
 	public Set<String> getNotesKeySet()
 	{
+		resolve();
 		return notes.keySet();
 	}
 
@@ -407,11 +511,13 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * {@link #notes} and this new note has been added
 	 */
 	public boolean addNote(String title, Note note) {
+		resolve() ;
 		if (notes.containsKey(title)) {
 			System.err
 			    .println("Key " + title + " already exist in notes") ;
 			return false ; }
 		notes.put(title, note) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -421,10 +527,12 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 	 * if there was no such note.
 	 */
 	public boolean removeNote(String title) {
+		resolve() ;
 		if (!notes.containsKey((title))) {
 			System.err.println("Key" + title + " doesn't exist in links") ;
 			return false ; }
 		notes.remove(title) ;
+		modified() ;
 		return true ; }
 
 	/**
@@ -557,66 +665,235 @@ public abstract class Contact implements Comparable<Contact>, Searchable<String>
 		}
 	}
 
+	/**
+	 * All texts searched by {@link #contains(String)}: {@link #name},
+	 * {@link #phoneNumbers} (also with compacted digits), {@link #addresses},
+	 * {@link #emails}, {@link #links} and {@link #notes} (keys and values as
+	 * strings).
+	 * @return a new collection of the texts searched in this contact
+	 * @implNote Used to build search indexes over contacts, so subclasses
+	 * adding fields to {@link #contains(String)} should also add them here.
+	 */
+	public Collection<String> searchableTexts()
+	{
+		resolve();
+		Collection<String> texts = new ArrayList<>();
+		if (name != null)
+		{
+			texts.add(name);
+		}
+		addSearchableTexts(texts, phoneNumbers);
+		if (phoneNumbers != null)
+		{
+			/*
+			 * Compacted digits so "0169367462" can be found in "01 69 36 74 62"
+			 */
+			for (PhoneNumber number : phoneNumbers.values())
+			{
+				texts.add(number.toString().replace(" ", ""));
+			}
+		}
+		addSearchableTexts(texts, addresses);
+		addSearchableTexts(texts, emails);
+		addSearchableTexts(texts, links);
+		addSearchableTexts(texts, notes);
+		return texts;
+	}
+
+	/**
+	 * Adds keys and values (as strings) of provided map to provided texts
+	 * @param texts the collection of texts to complete
+	 * @param map the map whose keys and values should be added
+	 */
+	private static void addSearchableTexts(Collection<String> texts,
+	                                       Map<String, ?> map)
+	{
+		if (map != null)
+		{
+			for (Map.Entry<String, ?> entry : map.entrySet())
+			{
+				texts.add(entry.getKey());
+				texts.add(entry.getValue().toString());
+			}
+		}
+	}
+
 	/**
 	 * Search for an element in {@link #name}, {@link #phoneNumbers} (in both
 	 * keys and values), {@link #addresses} (in both keys and values),
 	 * {@link #emails} (in both keys and values), {@link #links} (in both keys
-	 * and values) and {@link #notes} (in both keys and values)
+	 * and values) and {@link #notes} (in both keys and values), regardless of
+	 * case and accents
 	 * @param element the element to search
 	 * @return true if the provided element could be found in this object,
 	 * false otherwise
+	 * @see #fold(String)
 	 */
 	@Override
-	public boolean contains(String element) {
-		if (element == null) {
-			return false; // Ou lancez une IllegalArgumentException si vous préférez.
-		}
-		
-		if (name != null && name.contains(element)) {
-			return true;
+	public boolean contains(String element)
+	{
+		if (element == null)
+		{
+			return false;
 		}
-		
-		if (phoneNumbers != null) {
-			for (Map.Entry<String, PhoneNumber> entry : phoneNumbers.entrySet()) {
-				if (entry.getKey().contains(element) || entry.getValue().toString().contains(element)) {
-					return true;
-				}
+
+		return containsFolded(fold(element));
+	}
+
+	/**
+	 * Search for an already {@link #fold(String) folded} element in
+	 * {@link #getSearchText()}.
+	 * Allows to fold a searched element once when searching many contacts.
+	 * @param folded the folded element to search
+	 * @return true if the provided element could be found in this object,
+	 * false otherwise
+	 */
+	public boolean containsFolded(String folded)
+	{
+		return getSearchText().contains(folded);
+	}
+
+	/**
+	 * Normalized text searched by {@link #contains(String)}
+	 * @return the normalized text of this contact
+	 * @implNote When this contact is modified (on another thread) while the
+	 * text is being built, the text is still returned but not kept in
+	 * {@link #searchText}, so a stale text is never kept after a
+	 * modification: {@link #modified()} increments {@link #modifications}
+	 * before resetting {@link #searchText}, and the text is checked against
+	 * {@link #modifications} after being stored.
+	 */
+	public String getSearchText()
+	{
+		String text = searchText;
+		if (text == null)
+		{
+			long stamp = modifications;
+			StringBuilder sb = new StringBuilder();
+			for (String searchable : searchableTexts())
+			{
+				sb.append(fold(searchable));
+				sb.append(SearchTextSeparator);
 			}
-		}
-		
-		if (addresses != null) {
-			for (Map.Entry<String, Address> entry : addresses.entrySet()) {
-				if (entry.getKey().contains(element) || entry.getValue().toString().contains(element)) {
-					return true;
-				}
+			text = sb.toString();
+			searchText = text;
+			if (modifications != stamp)
+			{
+				searchText = null;
 			}
 		}
-		
-		if (emails != null) {
-			for (Map.Entry<String, URI> entry : emails.entrySet()) {
-				if (entry.getKey().contains(element) || entry.getValue().toString().contains(element)) {
-					return true;
-				}
-			}
+		return text;
+	}
+
+	/**
+	 * Number of modifications of this contact
+	 * @return the number of modifications of this contact (only meaningful
+	 * when compared to a previous number of modifications of this contact)
+	 */
+	public long getModifications()
+	{
+		return modifications;
+	}
+
+	/**
+	 * Check if details of this contact are available
+	 * @return true if this contact is complete, false if it is a stub whose
+	 * details have not been resolved yet
+	 */
+	public boolean isResolved()
+	{
+		return resolver == null;
+	}
+
+	/**
+	 * Obtain details of this contact from its {@link #resolver} if this
+	 * contact is still a stub.
+	 * Called by all accessors to details so stubs are transparently
+	 * completed on first access.
+	 * @throws IllegalStateException if details can't be decoded, in which
+	 * case this contact is left unchanged (still a stub) so resolution is
+	 * attempted again on next access
+	 * @implNote Details are copied from the resolved contact and
+	 * {@link #resolver} is reset last, so other threads either see a stub or
+	 * complete details. Resolving a stub is not a modification.
+	 */
+	public void resolve() throws IllegalStateException
+	{
+		if (resolver == null)
+		{
+			return;
 		}
-		
-		if (links != null) {
-			for (Map.Entry<String, URI> entry : links.entrySet()) {
-				if (entry.getKey().contains(element) || entry.getValue().toString().contains(element)) {
-					return true;
-				}
+		synchronized (this)
+		{
+			Resolver pending = resolver;
+			if (pending == null)
+			{
+				return;
+			}
+			/*
+			 * Details are only installed when resolution succeeds: otherwise
+			 * resolver is kept so this contact remains a stub
+			 */
+			Contact details = pending.resolve(this);
+			if ((details == null) || (details.resolver != null))
+			{
+				throw new IllegalStateException("unresolved details for " + name);
 			}
+			imagePath = details.imagePath;
+			phoneNumbers = details.phoneNumbers;
+			addresses = details.addresses;
+			emails = details.emails;
+			links = details.links;
+			notes = details.notes;
+			searchText = null;
+			resolver = null;
 		}
-		
-		if (notes != null) {
-			for (Map.Entry<String, Note> entry : notes.entrySet()) {
-				if (entry.getKey().contains(element) || entry.getValue().toString().contains(element)) {
-					return true;
-				}
+	}
+
+	/**
+	 * Records a modification of this contact: increments
+	 * {@link #modifications} and resets {@link #searchText} so it is rebuilt
+	 * on next search.
+	 * Should be called by every mutator.
+	 */
+	protected void modified()
+	{
+		modifications++;
+		searchText = null;
+	}
+
+	/**
+	 * Normalize a text for searching: accents are removed (after canonical
+	 * decomposition) and all characters are lower cased so "Élodie" can be
+	 * found with "elodie".
+	 * @param text the text to fold
+	 * @return the folded text
+	 */
+	public static String fold(String text)
+	{
+		boolean folded = true;
+		for (int i = 0; (i < text.length()) && folded; i++)
+		{
+			char c = text.charAt(i);
+			folded = (c < 128) && !Character.isUpperCase(c) && (c != SearchTextSeparator);
+		}
+		if (folded)
+		{
+			return text;
+		}
+
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder sb = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++)
+		{
+			char c = decomposed.charAt(i);
+			if ((Character.getType(c) != Character.NON_SPACING_MARK)
+			    && (c != SearchTextSeparator))
+			{
+				sb.append(Character.toLowerCase(c));
 			}
 		}
-		
-		return false;
+		return sb.toString();
 	}
 
 }
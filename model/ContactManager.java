@@ -1,9 +1,15 @@
 package model;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -11,7 +17,7 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
+import javafx.collections.ModifiableObservableListBase;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
@@ -25,6 +31,36 @@ public class ContactManager implements Set<Contact>
 	 */
 	private ObservableList<Contact> contacts;
 
+	/**
+	 * Hash based membership index of {@link #contacts} by {@link #key(Contact)}
+	 * so duplicates can be detected without scanning {@link #contacts}
+	 * @implNote Should always contain the exact same elements as
+	 * {@link #contacts}
+	 */
+	private Map<String, Contact> index;
+
+	/**
+	 * Key of each contact of {@link #contacts} in {@link #index} when it was
+	 * last indexed, so a modified (and possibly renamed) contact can be
+	 * removed from {@link #index} under its previous key
+	 */
+	private Map<Contact, String> keys;
+
+	/**
+	 * Search engine indexing {@link #contacts} contents used to search
+	 * contacts without testing all of them
+	 */
+	private SearchEngine searchIndex;
+
+	/**
+	 * Stub contacts (whose details are not resolved yet) which are not
+	 * indexed in {@link #searchIndex} yet, since indexing them would decode
+	 * all their details.
+	 * They are indexed by the first search which needs {@link #searchIndex}.
+	 * @see Contact#isResolved()
+	 */
+	private Set<Contact> unindexed;
+
 	/**
 	 * Filtered list of {@link Contact}s based on a filtering {@link Predicate}
 	 * @implNote This list can be fed to a {@link javafx.scene.control.ListView}
@@ -47,12 +83,80 @@ public class ContactManager implements Set<Contact>
 	private Predicate<Contact> predicate;
 
 	/**
-	 * Default constructor.
-	 * Creates an empty Contact list.
+	 * Type used in last {@link #setPredicate(Contact.Type, String)}
 	 */
-	public ContactManager()
+	private Contact.Type lastType;
+
+	/**
+	 * Search string used in last {@link #setPredicate(Contact.Type, String)}
+	 */
+	private String lastSearch;
+
+	/**
+	 * Contacts matched in last {@link #setPredicate(Contact.Type, String)} or
+	 * null if contacts have been added or modified since, so that a refined
+	 * search only needs to test these contacts.
+	 */
+	private Set<Contact> lastMatches;
+
+	/**
+	 * Contacts added or modified since last
+	 * {@link #setPredicate(Contact.Type, String)} which are not accounted for
+	 * in {@link #lastMatches} and should therefore be tested by
+	 * {@link #predicate}
+	 */
+	private Set<Contact> pending;
+
+	/**
+	 * Contacts added or modified during the ongoing
+	 * {@link #evaluate(Contact.Type, String)} (if any)
+	 */
+	private Set<Contact> evaluating;
+
+	/**
+	 * Service evaluating searches in background (or null to evaluate them
+	 * synchronously)
+	 * @see #filter(Contact.Type, String)
+	 */
+	private SearchService searchService;
+
+	/**
+	 * Default minimum number of candidate contacts to test them in parallel
+	 */
+	public static final int DefaultParallelThreshold = 4 * ParallelScan.DefaultThreshold;
+
+	/**
+	 * Minimum number of candidate contacts to test them in parallel in
+	 * {@link #scanPool} (or 0 to always test them sequentially)
+	 */
+	private int parallelThreshold;
+
+	/**
+	 * Pool used to test candidate contacts in parallel
+	 */
+	private ForkJoinPool scanPool;
+
+	/**
+	 * Valued constructor.
+	 * Creates an empty Contact list searched with the provided engine.
+	 * @param searchEngine the search engine to use for searching contacts
+	 * @throws NullPointerException if provided search engine is null
+	 */
+	public ContactManager(SearchEngine searchEngine)
 	{
-		contacts = FXCollections.<Contact>observableArrayList();
+		contacts = new ContactList();
+		index = new HashMap<>();
+		keys = new IdentityHashMap<>();
+		searchIndex = Objects.requireNonNull(searchEngine);
+		unindexed = SearchEngine.identitySet();
+		lastType = null;
+		lastSearch = null;
+		lastMatches = null;
+		pending = SearchEngine.identitySet();
+		evaluating = null;
+		searchService = null;
+		parallelThreshold = DefaultParallelThreshold;
+		scanPool = ForkJoinPool.commonPool();
 		typeFiltering = new SimpleObjectProperty<Contact.Type>(Contact.Type.ALL);
 		searched = new SimpleStringProperty("");
 		/*
@@ -68,6 +172,25 @@ public class ContactManager implements Set<Contact>
 			}
 		};
 		filteredContacts = new FilteredList<Contact>(contacts, predicate);
+
+		/*
+		 * Apply filtering whenever type or searched text changes
+		 */
+		typeFiltering.addListener((observable, oldValue, newValue) -> {
+			filter(newValue, getSearched());
+		});
+		searched.addListener((observable, oldValue, newValue) -> {
+			filter(getTypeFiltering(), newValue);
+		});
+	}
+
+	/**
+	 * Default constructor.
+	 * Creates an empty Contact list searched with a {@link TrigramIndex}
+	 */
+	public ContactManager()
+	{
+		this(new TrigramIndex());
 	}
 
 	/**
@@ -101,19 +224,409 @@ public class ContactManager implements Set<Contact>
 	 * Set {@link #predicate} and apply to {@link #filteredContacts}
 	 * @param type the type of contacts to filter
 	 * @param search the search string to search in contacts
+	 * @implNote Matching contacts are evaluated once here, so the predicate
+	 * only checks membership.
+	 * @see #evaluate(Contact.Type, String)
+	 * @see #apply(SearchResult)
 	 */
 	public void setPredicate(Contact.Type type, String search)
 	{
+		apply(evaluate(type, search));
+	}
+
+	/**
+	 * Request filtering of contacts: either through {@link #searchService}
+	 * when set or directly with {@link #setPredicate(Contact.Type, String)}
+	 * @param type the type of contacts to filter
+	 * @param search the search string to search in contacts
+	 */
+	public void filter(Contact.Type type, String search)
+	{
+		if (searchService != null)
+		{
+			searchService.submit(type, search);
+		}
+		else
+		{
+			setPredicate(type, search);
+		}
+	}
+
+	/**
+	 * Search contacts matching filtering conditions.
+	 * This method can be called from any thread, the result should then be
+	 * applied with {@link #apply(SearchResult)} on the JavaFX thread.
+	 * @param type the type of contacts to filter
+	 * @param search the search string to search in contacts
+	 * @return the matching contacts
+	 * @throws CancellationException if the calling thread is interrupted
+	 * during evaluation
+	 * @implNote When this search refines the previous one (same or narrower
+	 * type and search refining the previous search according to
+	 * {@link SearchEngine#refines(String, String)}), only the previous
+	 * matches are tested, otherwise candidates are obtained from
+	 * {@link #searchIndex}. When there are at least {@link #parallelThreshold}
+	 * candidates they are tested concurrently in {@link #scanPool}.
+	 * Stub contacts are indexed (and therefore resolved) by the first search
+	 * using {@link #searchIndex}.
+	 */
+	public SearchResult evaluate(Contact.Type type, String search)
+	    throws CancellationException
+	{
+		Collection<Contact> candidates;
+		Set<Contact> changes = SearchEngine.identitySet();
+		String folded = (search == null ? null : Contact.fold(search));
+		synchronized (this)
+		{
+			evaluating = changes;
+			if (refines(type, folded))
+			{
+				candidates = lastMatches;
+			}
+			else
+			{
+				indexStubs();
+				Set<Contact> found = searchIndex.search(search);
+				candidates = (found == null ? new ArrayList<>(contacts) : found);
+			}
+		}
+		Set<Contact> matches = SearchEngine.identitySet();
+		if ((parallelThreshold > 0) && (candidates.size() >= parallelThreshold))
+		{
+			Contact[] snapshot = candidates.toArray(new Contact[candidates.size()]);
+			matches.addAll(ParallelScan.scan(scanPool,
+			                                 snapshot,
+			                                 (Contact contact) -> matches(contact, type, folded),
+			                                 ParallelScan.DefaultThreshold));
+		}
+		else
+		{
+			for (Contact contact : candidates)
+			{
+				if (Thread.currentThread().isInterrupted())
+				{
+					throw new CancellationException("search " + search + " cancelled");
+				}
+				if (matches(contact, type, folded))
+				{
+					matches.add(contact);
+				}
+			}
+		}
+		return new SearchResult(type, search, folded, matches, changes);
+	}
+
+	/**
+	 * Apply the result of {@link #evaluate(Contact.Type, String)} to
+	 * {@link #filteredContacts}.
+	 * Should be called on the JavaFX thread.
+	 * @param result the search result to apply
+	 */
+	public void apply(SearchResult result)
+	{
+		Contact.Type type = result.getType();
+		String folded = result.folded;
+		Set<Contact> matches = result.getMatches();
+		Set<Contact> added = result.changes;
+		synchronized (this)
+		{
+			if (evaluating == added)
+			{
+				evaluating = null;
+			}
+			lastType = type;
+			lastSearch = folded;
+			/*
+			 * contacts changed during evaluation are not accounted for in
+			 * matches
+			 */
+			lastMatches = (added.isEmpty() ? matches : null);
+			pending = added;
+		}
 		predicate = new Predicate<Contact>()
 		{
 			@Override
-			public boolean test(Contact contact) {
-				if (!(contact.getType() == type)) {
-					return false ; }
-				if (!contact.contains(search)) {
-					return false ; }
-				return true ; } } ;
-		filteredContacts.setPredicate(predicate) ; }
+			public boolean test(Contact contact)
+			{
+				if (added.contains(contact))
+				{
+					return matches(contact, type, folded);
+				}
+				return matches.contains(contact);
+			}
+		};
+		filteredContacts.setPredicate(predicate);
+	}
+
+	/**
+	 * Search service access
+	 * @return the search service used by {@link #filter(Contact.Type, String)}
+	 * or null if filtering is synchronous
+	 */
+	public SearchService getSearchService()
+	{
+		return searchService;
+	}
+
+	/**
+	 * Set the search service used by {@link #filter(Contact.Type, String)}
+	 * @param searchService the search service to use (or null for synchronous
+	 * filtering)
+	 */
+	public void setSearchService(SearchService searchService)
+	{
+		this.searchService = searchService;
+	}
+
+	/**
+	 * Parallel threshold access
+	 * @return the minimum number of candidate contacts to test them in
+	 * parallel (or 0 if they are always tested sequentially)
+	 */
+	public int getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+
+	/**
+	 * Set the parallel threshold and pool used to test candidate contacts
+	 * @param parallelThreshold the minimum number of candidate contacts to
+	 * test them in parallel (or 0 to always test them sequentially)
+	 * @param pool the pool to use to test candidates in parallel (or null to
+	 * use {@link ForkJoinPool#commonPool()})
+	 */
+	public void setParallelScan(int parallelThreshold, ForkJoinPool pool)
+	{
+		this.parallelThreshold = Math.max(0, parallelThreshold);
+		scanPool = (pool == null ? ForkJoinPool.commonPool() : pool);
+	}
+
+	/**
+	 * Check if a contact matches filtering conditions
+	 * @param contact the contact to check
+	 * @param type the type of contacts to filter (null or
+	 * {@link Contact.Type#ALL} for all types)
+	 * @param folded the {@link Contact#fold(String) folded} search string to
+	 * search in contact (or null)
+	 * @return true if contact has the right type and contains search, false
+	 * otherwise or if contact is a stub whose details can't be decoded
+	 */
+	private static boolean matches(Contact contact, Contact.Type type, String folded)
+	{
+		if (folded == null)
+		{
+			return false;
+		}
+		if (!(type == null) && !(type == Contact.Type.ALL) && !(contact.getType() == type))
+		{
+			return false;
+		}
+		try
+		{
+			return contact.containsFolded(folded);
+		}
+		catch (IllegalStateException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Check if provided filtering conditions refine the previous ones, in which
+	 * case all matching contacts are among {@link #lastMatches}
+	 * @param type the new type of contacts to filter
+	 * @param search the new (folded) search string
+	 * @return true if {@link #lastMatches} is still valid and contains all
+	 * contacts matching these conditions
+	 */
+	private boolean refines(Contact.Type type, String search)
+	{
+		if ((lastMatches == null) || (search == null) || (lastSearch == null))
+		{
+			return false;
+		}
+		boolean typeRefined = (lastType == null)
+		    || (lastType == Contact.Type.ALL)
+		    || (lastType == type);
+		return typeRefined && searchIndex.refines(lastSearch, search);
+	}
+
+	/**
+	 * Records that a contact has been added or modified since last
+	 * {@link #setPredicate(Contact.Type, String)} or during an ongoing
+	 * {@link #evaluate(Contact.Type, String)}
+	 * @param c the added or modified contact
+	 */
+	private synchronized void changed(Contact c)
+	{
+		lastMatches = null;
+		pending.add(c);
+		if (evaluating != null)
+		{
+			evaluating.add(c);
+		}
+	}
+
+	/**
+	 * Observable list of sorted contacts supporting bulk insertions reported
+	 * as a single change.
+	 */
+	private static class ContactList extends ModifiableObservableListBase<Contact>
+	{
+		/**
+		 * The contacts of this list
+		 */
+		private List<Contact> elements = new ArrayList<>();
+
+		/**
+		 * Merges sorted contacts into this (already sorted) list.
+		 * @param added the sorted contacts to insert
+		 * @implNote Contacts are merged in one pass and each run of
+		 * consecutive added contacts is reported as an addition at its final
+		 * position within a single change, so existing contacts are neither
+		 * removed nor replaced.
+		 */
+		public void merge(List<Contact> added)
+		{
+			List<Contact> merged = ContactManager.merge(elements, added);
+			Map<Contact, Boolean> inserted = new IdentityHashMap<>(added.size());
+			for (Contact contact : added)
+			{
+				inserted.put(contact, Boolean.TRUE);
+			}
+
+			beginChange();
+			modCount++;
+			elements = merged;
+			int from = -1;
+			for (int i = 0; i <= merged.size(); i++)
+			{
+				boolean isAdded = (i < merged.size())
+				    && inserted.containsKey(merged.get(i));
+				if (isAdded && (from < 0))
+				{
+					from = i;
+				}
+				else if (!isAdded && (from >= 0))
+				{
+					nextAdd(from, i);
+					from = -1;
+				}
+			}
+			endChange();
+		}
+
+		@Override
+		public Contact get(int index)
+		{
+			return elements.get(index);
+		}
+
+		@Override
+		public int size()
+		{
+			return elements.size();
+		}
+
+		@Override
+		protected void doAdd(int index, Contact element)
+		{
+			elements.add(index, element);
+		}
+
+		@Override
+		protected Contact doSet(int index, Contact element)
+		{
+			return elements.set(index, element);
+		}
+
+		@Override
+		protected Contact doRemove(int index)
+		{
+			return elements.remove(index);
+		}
+	}
+
+	/**
+	 * Result of {@link ContactManager#evaluate(Contact.Type, String)}:
+	 * filtering conditions and matching contacts
+	 */
+	public static class SearchResult
+	{
+		/**
+		 * The type of contacts filtered
+		 */
+		private final Contact.Type type;
+
+		/**
+		 * The searched string
+		 */
+		private final String search;
+
+		/**
+		 * The folded searched string
+		 */
+		private final String folded;
+
+		/**
+		 * Contacts matching {@link #type} and {@link #search}
+		 */
+		private final Set<Contact> matches;
+
+		/**
+		 * Contacts added or modified during evaluation, which should be
+		 * tested again
+		 */
+		private final Set<Contact> changes;
+
+		/**
+		 * Valued constructor
+		 * @param type the type of contacts filtered
+		 * @param search the searched string
+		 * @param folded the folded searched string
+		 * @param matches the matching contacts
+		 * @param changes the contacts changed during evaluation
+		 */
+		private SearchResult(Contact.Type type,
+		                     String search,
+		                     String folded,
+		                     Set<Contact> matches,
+		                     Set<Contact> changes)
+		{
+			this.type = type;
+			this.search = search;
+			this.folded = folded;
+			this.matches = matches;
+			this.changes = changes;
+		}
+
+		/**
+		 * Type accessor
+		 * @return the type of contacts filtered
+		 */
+		public Contact.Type getType()
+		{
+			return type;
+		}
+
+		/**
+		 * Search accessor
+		 * @return the searched string
+		 */
+		public String getSearch()
+		{
+			return search;
+		}
+
+		/**
+		 * Matches accessor
+		 * @return the contacts matching type and search
+		 */
+		public Set<Contact> getMatches()
+		{
+			return matches;
+		}
+	}
 
 	/**
 	 * Type filtering property access
@@ -186,7 +699,7 @@ public class ContactManager implements Set<Contact>
 	@Override
 	public boolean contains(Object o)
 	{
-		return contacts.contains(o);
+		return (o instanceof Contact) && index.containsKey(key((Contact) o));
 	}
 
 
@@ -210,61 +723,355 @@ public class ContactManager implements Set<Contact>
 		return contacts.toArray(a);
 	}
 
+	/**
+	 * Adds a contact at its sorted position in {@link #contacts}.
+	 * @param c the contact to add
+	 * @return true if the contact was not already present and has been added
+	 * @throws NullPointerException if provided contact is null
+	 * @implNote Insertion point is found by binary search so {@link #contacts}
+	 * stays sorted and listeners only receive a single element add change
+	 * rather than a full permutation.
+	 */
 	@Override
-	public boolean add(Contact c) throws NullPointerException
+	public synchronized boolean add(Contact c) throws NullPointerException
 	{
 		Objects.requireNonNull(c);
 
-		if (contains(c))
+		if (!put(c))
 		{
 			return false;
 		}
 
-		boolean added = contacts.add(c);
-		Collections.sort(contacts);
-		return added;
+		changed(c);
+		contacts.add(insertionPoint(c), c);
+		index(c);
+		return true;
 	}
 
 
 	@Override
-	public boolean remove(Object o)
+	public synchronized boolean remove(Object o)
 	{
-		return contacts.remove(o);
+		if (!contains(o))
+		{
+			return false;
+		}
+
+		Contact removed = index.remove(key((Contact) o));
+		keys.remove(removed);
+		contacts.remove(position(removed));
+		if (!unindexed.remove(removed))
+		{
+			searchIndex.remove(removed);
+		}
+		return true;
 	}
 
 
 	@Override
 	public boolean containsAll(Collection<?> c)
 	{
-		return contacts.containsAll(c);
+		for (Object o : c)
+		{
+			if (!contains(o))
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 
+	/**
+	 * Adds all contacts of provided collection which are not already present.
+	 * @param c the collection of contacts to add
+	 * @return true if at least one contact has been added
+	 * @throws NullPointerException if the provided collection or any of its
+	 * elements is null, in which case no contact is added
+	 * @implNote New contacts are deduplicated through {@link #index}, sorted
+	 * once and then merged with the (already sorted) {@link #contacts} in a
+	 * single operation, so listeners receive only one change regardless of the
+	 * number of added contacts. This change only reports additions at their
+	 * final positions so views keep their selection and scroll position.
+	 */
 	@Override
-	public boolean addAll(Collection<? extends Contact> c)
+	public synchronized boolean addAll(Collection<? extends Contact> c)
 	{
-		return contacts.addAll(c);
+		Objects.requireNonNull(c);
+		/*
+		 * All contacts are checked before changing index so a null contact
+		 * leaves this manager unchanged
+		 */
+		for (Contact contact : c)
+		{
+			Objects.requireNonNull(contact);
+		}
+
+		List<Contact> added = new ArrayList<>(c.size());
+		for (Contact contact : c)
+		{
+			if (put(contact))
+			{
+				added.add(contact);
+			}
+		}
+
+		if (added.isEmpty())
+		{
+			return false;
+		}
+
+		added.sort(null);
+		for (Contact contact : added)
+		{
+			index(contact);
+			changed(contact);
+		}
+		((ContactList) contacts).merge(added);
+		return true;
 	}
 
 
 	@Override
-	public boolean retainAll(Collection<?> c)
+	public synchronized boolean retainAll(Collection<?> c)
 	{
-		return contacts.retainAll(c);
+		boolean changed = contacts.retainAll(c);
+		if (changed)
+		{
+			reindex();
+		}
+		return changed;
 	}
 
 
 	@Override
-	public boolean removeAll(Collection<?> c)
+	public synchronized boolean removeAll(Collection<?> c)
 	{
-		return contacts.removeAll(c);
+		boolean changed = contacts.removeAll(c);
+		if (changed)
+		{
+			reindex();
+		}
+		return changed;
 	}
 
 
 	@Override
-	public void clear()
+	public synchronized void clear()
 	{
+		lastMatches = null;
 		contacts.clear();
+		index.clear();
+		keys.clear();
+		searchIndex.clear();
+		unindexed.clear();
+	}
+
+	/**
+	 * Notifies this manager that a contact has been modified so it can be
+	 * moved to its new sorted position and re-indexed.
+	 * @param c the modified contact
+	 * @return true if the contact is managed by this manager and has been
+	 * updated, false otherwise
+	 * @implNote Since name might have changed, the contact is removed from
+	 * {@link #index} under the key it was indexed with (recorded in
+	 * {@link #keys}) and put back under its current key, so only this
+	 * contact is re-indexed.
+	 */
+	public synchronized boolean update(Contact c)
+	{
+		String key = keys.remove(c);
+		if (key == null)
+		{
+			return false;
+		}
+
+		changed(c);
+		if (index.get(key) == c)
+		{
+			index.remove(key);
+		}
+		if (!put(c))
+		{
+			/*
+			 * Renamed as another contact: still managed
+			 */
+			keys.put(c, key(c));
+		}
+		contacts.remove(position(c));
+		contacts.add(insertionPoint(c), c);
+		if (unindexed.remove(c))
+		{
+			index(c);
+		}
+		else
+		{
+			searchIndex.update(c);
+		}
+		return true;
+	}
+
+	/**
+	 * Rebuilds {@link #index} and {@link #searchIndex} from {@link #contacts}.
+	 * Should be used whenever {@link #contacts} has been modified in bulk or
+	 * when a contact's name (used in hash code) has changed.
+	 */
+	public synchronized void reindex()
+	{
+		lastMatches = null;
+		index.clear();
+		keys.clear();
+		searchIndex.clear();
+		unindexed.clear();
+		for (Contact contact : contacts)
+		{
+			put(contact);
+			index(contact);
+		}
+	}
+
+	/**
+	 * Key of a contact in {@link #index}: contacts with the same key are
+	 * considered duplicates
+	 * @param c the contact
+	 * @return the type and full name of the contact
+	 */
+	private static String key(Contact c)
+	{
+		return c.getClass().getName() + ':' + c.toString();
+	}
+
+	/**
+	 * Puts a contact in {@link #index} and records its key in {@link #keys}
+	 * unless a contact with the same key is already indexed
+	 * @param c the contact to put
+	 * @return true if the contact has been put in {@link #index}, false if
+	 * it is a duplicate
+	 */
+	private boolean put(Contact c)
+	{
+		String key = key(c);
+		if (index.putIfAbsent(key, c) != null)
+		{
+			return false;
+		}
+		keys.put(c, key);
+		return true;
+	}
+
+	/**
+	 * Position of a contact in {@link #contacts}
+	 * @param c the contact to look for
+	 * @return the position of this very contact (not of an equal one) in
+	 * {@link #contacts} or -1 if it is not in {@link #contacts}
+	 */
+	private int position(Contact c)
+	{
+		for (int i = 0; i < contacts.size(); i++)
+		{
+			if (contacts.get(i) == c)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds a contact to {@link #searchIndex}, unless it is a stub in which
+	 * case it is only recorded in {@link #unindexed}
+	 * @param c the contact to index
+	 */
+	private void index(Contact c)
+	{
+		if (c.isResolved())
+		{
+			searchIndex.add(c);
+		}
+		else
+		{
+			unindexed.add(c);
+		}
+	}
+
+	/**
+	 * Indexes all {@link #unindexed} stub contacts in {@link #searchIndex},
+	 * which resolves their details.
+	 * Should be called before any use of {@link #searchIndex} for searching.
+	 * @implNote Each stub is removed from {@link #unindexed} once indexed.
+	 * Stubs whose details can't be decoded are skipped and stay in
+	 * {@link #unindexed} so they are indexed by a later search if they can
+	 * be resolved by then.
+	 */
+	private synchronized void indexStubs()
+	{
+		for (Iterator<Contact> it = unindexed.iterator(); it.hasNext();)
+		{
+			Contact contact = it.next();
+			try
+			{
+				searchIndex.add(contact);
+				it.remove();
+			}
+			catch (IllegalStateException e)
+			{
+				System.err.println("Error indexing " + contact + ": "
+				    + e.getLocalizedMessage());
+			}
+		}
+	}
+
+	/**
+	 * Merges two sorted lists of contacts into a new sorted list.
+	 * @param first the first sorted list (whose elements come first among
+	 * equivalent contacts)
+	 * @param second the second sorted list
+	 * @return a new sorted list containing the elements of both lists
+	 */
+	private static List<Contact> merge(List<Contact> first, List<Contact> second)
+	{
+		List<Contact> merged = new ArrayList<>(first.size() + second.size());
+		int i = 0;
+		int j = 0;
+		while ((i < first.size()) && (j < second.size()))
+		{
+			if (first.get(i).compareTo(second.get(j)) <= 0)
+			{
+				merged.add(first.get(i++));
+			}
+			else
+			{
+				merged.add(second.get(j++));
+			}
+		}
+		merged.addAll(first.subList(i, first.size()));
+		merged.addAll(second.subList(j, second.size()));
+		return merged;
+	}
+
+	/**
+	 * Binary search for the position where provided contact should be inserted
+	 * in {@link #contacts} according to {@link Contact#compareTo(Contact)}.
+	 * @param c the contact to insert
+	 * @return the index after the last contact comparing less or equal to c
+	 * (so that equivalent contacts keep their insertion order)
+	 */
+	private int insertionPoint(Contact c)
+	{
+		int low = 0;
+		int high = contacts.size();
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (contacts.get(mid).compareTo(c) <= 0)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
 	}
 }
-		// Compare partAValues first
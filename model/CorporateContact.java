@@ -38,6 +38,18 @@ public class CorporateContact extends Contact
 		employees = new HashSet<>();
 	}
 
+	/**
+	 * Stub constructor
+	 * @param name the name of this contact
+	 * @param resolver the resolver of this contact's details
+	 * @see Contact#Contact(String, Contact.Resolver)
+	 */
+	public CorporateContact(String name, Contact.Resolver resolver)
+	{
+		super(name, resolver);
+		employees = new HashSet<>();
+	}
+
 	/**
 	 * Copy constructor
 	 * @param contact the contact to copy
@@ -67,21 +79,29 @@ public class CorporateContact extends Contact
 		return employees.contains(contact);
 	}
 
-	public boolean contains(String element)
-{
-	boolean contained = super.contains(element);
-	if (!contained)
+	/**
+	 * Search for an already folded element in this contact and then in its
+	 * {@link #employees}
+	 * @param folded the folded element to search
+	 * @return true if the provided element could be found in this object or
+	 * in one of its employees, false otherwise
+	 */
+	@Override
+	public boolean containsFolded(String folded)
 	{
+		if (super.containsFolded(folded))
+		{
+			return true;
+		}
 		for (PersonalContact employee : employees)
 		{
-			if (employee.contains(element))
+			if (employee.containsFolded(folded))
 			{
 				return true;
 			}
 		}
+		return false;
 	}
-	return contained;
-}
 	
 
 	/**
@@ -95,6 +115,7 @@ public class CorporateContact extends Contact
 		if (employees.contains(contact)){
 			return false ; }
 		employees.add(contact) ;
+		modified() ;
 		contact.setCorporation(this) ;
 		return true ; }
 
@@ -108,7 +129,8 @@ public class CorporateContact extends Contact
 	public boolean remove(PersonalContact contact) {
 		if (!employees.contains(contact)) {
 			return false ; }
-		employees.remove(contact) ;		
+		employees.remove(contact) ;
+		modified() ;
 		contact.setCorporation(null) ;
 		return true ; }
 
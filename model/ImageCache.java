@@ -0,0 +1,172 @@
+package model;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+
+import javafx.scene.image.Image;
+import utils.FlyweightFactory;
+
+/**
+ * Cache of the {@link Contact}s images, indexed by image path.
+ * <ul>
+ * <li>Images are only decoded when first requested by
+ * {@link Contact#getImage()}, and in background: the provided
+ * {@link Image} is empty until its {@link Image#progressProperty() progress}
+ * reaches 1.</li>
+ * <li>Images are downscaled while decoded to the {@link #size} they are
+ * displayed with, so only thumbnails are kept in memory.</li>
+ * <li>At most {@link #MaximumSize} images are kept, and they can be reclaimed
+ * when memory runs low.</li>
+ * </ul>
+ */
+public class ImageCache
+{
+	/**
+	 * Default size (in pixels) of the images' bounding box
+	 */
+	public static final double DefaultSize = 100.0;
+
+	/**
+	 * Maximum number of images kept in {@link #images}
+	 */
+	public static final int MaximumSize = 256;
+
+	/**
+	 * Images indexed by their {@link URI} path
+	 */
+	private static final FlyweightFactory<Image> images =
+		new FlyweightFactory<Image>(null,
+		                            MaximumSize,
+		                            FlyweightFactory.Retention.SOFT);
+
+	static
+	{
+		// 4 bytes per pixel of the requested size since actual size is not
+		// known until the image is loaded
+		images.setWeigher((Image image) ->
+			(long) (image.getRequestedWidth() * image.getRequestedHeight() * 4));
+		images.register("ContactImages");
+	}
+
+	/**
+	 * Size (in pixels) of the bounding box images are downscaled to (or 0 to
+	 * keep their original size)
+	 */
+	private static volatile double size = DefaultSize;
+
+	/**
+	 * Private constructor since this class only provides static methods
+	 */
+	private ImageCache()
+	{
+	}
+
+	/**
+	 * Image accessor
+	 * @param imagePath the path of the image
+	 * @return the image loaded (in background) from this path and downscaled
+	 * to {@link #size}, which might be an error image (see
+	 * {@link Image#isError()}) if the path can't be read
+	 * @throws NullPointerException if imagePath is null
+	 */
+	public static Image getImage(URI imagePath) throws NullPointerException
+	{
+		return images.get(imagePath, ImageCache::load);
+	}
+
+	/**
+	 * Loads an image in background
+	 * @param imagePath the path of the image
+	 * @return a new image loading in background
+	 */
+	private static Image load(URI imagePath)
+	{
+		double currentSize = size;
+		return new Image(imagePath.toString(),
+		                 currentSize,
+		                 currentSize,
+		                 true,
+		                 true,
+		                 true);
+	}
+
+	/**
+	 * Checks an image path can be used to load an image, without reading it.
+	 * @param imagePath the path to check
+	 * @throws NullPointerException if imagePath is null
+	 * @throws IllegalArgumentException if imagePath is neither a valid URL
+	 * nor the path of an existing resource, as in
+	 * {@link Image#Image(String)}
+	 */
+	public static void validate(URI imagePath)
+	    throws NullPointerException, IllegalArgumentException
+	{
+		if (imagePath.isAbsolute())
+		{
+			try
+			{
+				imagePath.toURL();
+			}
+			catch (MalformedURLException e)
+			{
+				throw new IllegalArgumentException("Invalid URL: " + imagePath, e);
+			}
+			return;
+		}
+		String path = imagePath.toString();
+		if (path.startsWith("/"))
+		{
+			path = path.substring(1);
+		}
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader == null)
+		{
+			loader = ImageCache.class.getClassLoader();
+		}
+		if (loader.getResource(path) == null)
+		{
+			throw new IllegalArgumentException("Invalid URL or resource not found: "
+			    + imagePath);
+		}
+	}
+
+	/**
+	 * Size accessor
+	 * @return the size (in pixels) of the bounding box images are downscaled
+	 * to or 0 if they are kept at their original size
+	 */
+	public static double getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Size mutator.
+	 * Images already loaded with another size are discarded.
+	 * @param size the size (in pixels) of the bounding box images should be
+	 * downscaled to (typically the size of the view displaying them) or 0 to
+	 * keep their original size
+	 * @throws IllegalArgumentException if size is negative
+	 */
+	public static void setSize(double size) throws IllegalArgumentException
+	{
+		if (!(size >= 0.0))
+		{
+			throw new IllegalArgumentException("invalid size " + size);
+		}
+		if (size != ImageCache.size)
+		{
+			ImageCache.size = size;
+			images.clear();
+		}
+	}
+
+	/**
+	 * Statistics accessor
+	 * @return a snapshot of the statistics of this cache
+	 */
+	public static FlyweightFactory.Statistics getStatistics()
+	{
+		return images.getStatistics();
+	}
+}
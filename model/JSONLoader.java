@@ -1,31 +1,66 @@
 package model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
  * JSON Loader using Jackson's {@link ObjectMapper} to read or write
- * a {@link Set} of {@link Contact} from or to JSON {@link File}
+ * a {@link Set} of {@link Contact} from or to JSON {@link File}.
+ * Files are either a root object holding a "date" and a "contacts" array, or
+ * (when {@link #isLineDelimited()}) NDJSON files holding one contact object
+ * per line with the same fields.
  */
 public class JSONLoader extends Loader
 {
@@ -40,6 +75,69 @@ public class JSONLoader extends Loader
 	 */
 	private SimpleDateFormat format;
 
+	/**
+	 * Formatter used to parse notes dates (which, unlike {@link #format},
+	 * can be used by several threads)
+	 */
+	private static final DateTimeFormatter NoteDateFormat = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+	/**
+	 * Default number of contacts built by each task when loading in parallel
+	 */
+	public static final int DefaultChunkSize = 1024;
+
+	/**
+	 * Number of contacts built by each task submitted to {@link #loadPool}
+	 * (or 0 to build contacts sequentially while parsing)
+	 */
+	private int chunkSize;
+
+	/**
+	 * Pool used to build contacts in parallel
+	 */
+	private ExecutorService loadPool;
+
+	/**
+	 * Default number of contact changes recorded in the change log before it
+	 * is compacted into {@link #file}
+	 */
+	public static final int DefaultCompactionThreshold = 1024;
+
+	/**
+	 * Number of contact changes recorded in the change log before it is
+	 * compacted into {@link #file} (or 0 to always rewrite {@link #file})
+	 */
+	private int compactionThreshold;
+
+	/**
+	 * Key and number of modifications of each contact as last loaded from or
+	 * saved to {@link #file} and its change log, or null if this loader did
+	 * not load or save {@link #file} yet, in which case next save rewrites
+	 * {@link #file}.
+	 */
+	private Map<Contact, SavedContact> saved;
+
+	/**
+	 * Number of contact changes recorded in the change log
+	 */
+	private int logSize;
+
+	/**
+	 * Number of valid records in the change log
+	 */
+	private long logRecords;
+
+	/**
+	 * Length (in bytes) of valid records in the change log
+	 */
+	private long logLength;
+
+	/**
+	 * Whether {@link #file} holds one contact per line (NDJSON) rather than
+	 * a root object with a contacts array
+	 */
+	private boolean lineDelimited;
+
 	/**
 	 * Constructor with provided file
 	 * @param file the file to use
@@ -51,6 +149,14 @@ public class JSONLoader extends Loader
 		format = new SimpleDateFormat("yyyy/MM/dd");
 		objectMapper.setDateFormat(format);
 		objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+		chunkSize = DefaultChunkSize;
+		loadPool = ForkJoinPool.commonPool();
+		compactionThreshold = DefaultCompactionThreshold;
+		saved = null;
+		logSize = 0;
+		logRecords = 0;
+		logLength = 0;
+		lineDelimited = isLineDelimited(file);
 	}
 
 	/**
@@ -62,6 +168,119 @@ public class JSONLoader extends Loader
 		this(null);
 	}
 
+	/**
+	 * Number of contacts built by each parallel task
+	 * @return the number of contacts built by each parallel task (or 0 if
+	 * contacts are built sequentially)
+	 */
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * Set the chunk size and pool used to build contacts in parallel
+	 * @param chunkSize the number of contacts built by each parallel task
+	 * (or 0 to build contacts sequentially)
+	 * @param pool the pool to use to build contacts in parallel (or null to
+	 * use {@link ForkJoinPool#commonPool()})
+	 */
+	public void setParallelLoad(int chunkSize, ExecutorService pool)
+	{
+		this.chunkSize = Math.max(0, chunkSize);
+		loadPool = (pool == null ? ForkJoinPool.commonPool() : pool);
+	}
+
+	/**
+	 * Number of contact changes recorded in the change log before it is
+	 * compacted
+	 * @return the compaction threshold (or 0 if {@link #file} is always
+	 * rewritten)
+	 */
+	public int getCompactionThreshold()
+	{
+		return compactionThreshold;
+	}
+
+	/**
+	 * Set the number of contact changes recorded in the change log before it
+	 * is compacted
+	 * @param compactionThreshold the compaction threshold (or 0 to always
+	 * rewrite {@link #file})
+	 */
+	public void setCompactionThreshold(int compactionThreshold)
+	{
+		this.compactionThreshold = Math.max(0, compactionThreshold);
+	}
+
+	/**
+	 * Change log of {@link #file}: the file next to {@link #file} recording
+	 * contacts changed since {@link #file} was last written
+	 * @return the change log file of {@link #file}
+	 * @throws NullPointerException if internal {@link #file} is null
+	 */
+	public File getLogFile()
+	{
+		return new File(file.getPath() + ".log");
+	}
+
+	/**
+	 * Working file mutator.
+	 * Next save to this file will rewrite the whole file.
+	 * @param file the file to set
+	 */
+	@Override
+	public void setFile(File file)
+	{
+		super.setFile(file);
+		saved = null;
+		lineDelimited = isLineDelimited(file);
+	}
+
+	/**
+	 * Line delimited (NDJSON) mode access
+	 * @return true if {@link #file} holds one contact object per line, false
+	 * if it holds a root object with a contacts array
+	 */
+	public boolean isLineDelimited()
+	{
+		return lineDelimited;
+	}
+
+	/**
+	 * Set line delimited (NDJSON) mode.
+	 * In this mode, each line of {@link #file} is a contact object (with the
+	 * same fields as in the contacts array) so files can be processed one
+	 * line at a time, split or appended to. Contacts on later lines replace
+	 * contacts with the same name on earlier lines. Since there is no date in
+	 * such files, loaded date is the last modification date of {@link #file}.
+	 * @param lineDelimited true to read and write NDJSON files
+	 * @implNote Initialized from {@link #file} extension (".ndjson" or
+	 * ".jsonl", possibly followed by a compression extension)
+	 */
+	public void setLineDelimited(boolean lineDelimited)
+	{
+		this.lineDelimited = lineDelimited;
+		saved = null;
+	}
+
+	/**
+	 * Check if a file name denotes a line delimited (NDJSON) file
+	 * @param file the file (or null)
+	 * @return true if file name ends with ".ndjson" or ".jsonl" (possibly
+	 * followed by ".gz", ".zz" or ".deflate")
+	 */
+	private static boolean isLineDelimited(File file)
+	{
+		if (file == null)
+		{
+			return false;
+		}
+		String name = file.getName().toLowerCase(Locale.ROOT)
+		    .replaceFirst("\\.(gz|zz|deflate)$", "");
+		return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+	}
+
 	/**
 	 * Loads a {@link Set} of {@link Contact} from {@link #file}
 	 * @return the set of contacts loaded from {@link #file}
@@ -69,7 +288,17 @@ public class JSONLoader extends Loader
 	 * @throws ParseException whenever a parse error occurs
 	 * @throws NullPointerException whenever an unexpected JsonNode is
 	 * encountered or when internal {@link #file} is not set yet
-	 * @throws IOException if {@link ObjectMapper} can't read file
+	 * @throws IOException if file can't be read or is not valid JSON
+	 * @implNote The file is read with a streaming {@link JsonParser}: only
+	 * the nodes of the contacts being built are held in memory, so memory
+	 * usage does not depend on the number of contacts in the file.
+	 * Line delimited files are read one line at a time in the same way.
+	 * Unless {@link #chunkSize} is 0, chunks of contact nodes are built into
+	 * contacts by {@link #loadPool} while parsing goes on.
+	 * Changes recorded in the change log ({@link #getLogFile()}) are then
+	 * replayed over the contacts of {@link #file}.
+	 * Compressed files are detected and decompressed while parsing (the
+	 * change log itself is never compressed).
 	 */
 	@Override
 	public Set<Contact> load()
@@ -79,450 +308,1321 @@ public class JSONLoader extends Loader
 	    IOException
 	{
 		Objects.requireNonNull(file);
-		JsonNode rootNode = null;
+
+		/*
+		 * Contacts built from the file in order, along with their relations
+		 */
+		ContactChunk loaded = new ContactChunk(new ArrayList<>());
+
+		boolean dateFound = false;
+		boolean contactsFound = false;
+		if (lineDelimited)
+		{
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(openInput(),
+			                                                                      StandardCharsets.UTF_8)))
+			{
+				readContacts(lineNodes(reader), loaded);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Error reading " + file);
+				throw e;
+			}
+			date = new Date(file.lastModified());
+			dateFound = true;
+			contactsFound = true;
+		}
+		else
+		{
+			try (JsonParser parser = objectMapper.getFactory().createParser(openInput()))
+			{
+				if (parser.nextToken() != JsonToken.START_OBJECT)
+				{
+					throw new ParseException("root node is not an object", 0);
+				}
+
+				while (parser.nextToken() == JsonToken.FIELD_NAME)
+				{
+					String fieldName = parser.getCurrentName();
+					JsonToken token = parser.nextToken();
+					if (fieldName.equals("date"))
+					{
+						/*
+						 * Date
+						 */
+						date = format.parse(parser.getText());
+						dateFound = true;
+					}
+					else if (fieldName.equals("contacts"))
+					{
+						/*
+						 * Contacts [array]
+						 */
+						if (token != JsonToken.START_ARRAY)
+						{
+							throw new ParseException("contacts node is not an array", 0);
+						}
+						readContacts(arrayNodes(parser), loaded);
+						contactsFound = true;
+					}
+					else
+					{
+						parser.skipChildren();
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				System.err.println("JsonParser error reading " + file);
+				throw e;
+			}
+		}
+
+		if (!dateFound)
+		{
+			throw new ParseException("missing date node", 0);
+		}
+		if (!contactsFound)
+		{
+			throw new ParseException("missing contacts node", 0);
+		}
+
+		LoadedContacts result = new LoadedContacts();
+		for (Contact contact : loaded.contacts)
+		{
+			if (lineDelimited)
+			{
+				result.remove(contact.toString());
+			}
+			result.add(contact);
+		}
+		replayLog(loaded, result);
+		result.link(loaded.corporationsMap, loaded.employeesMap);
+		remember(result.contacts);
+
+		return result.contacts;
+	}
+
+	/**
+	 * Replays the change log ({@link #getLogFile()}) if any.
+	 * Each record of the change log is a JSON object on its own line (framed
+	 * by {@link #frameRecord(byte[], long)}) holding the save "date", the
+	 * names of "removed" contacts and the saved "contacts" (replacing
+	 * contacts with the same name).
+	 * Replay stops at the first incomplete or invalid line (e.g. if a save
+	 * has been interrupted): this line and the following ones are ignored and
+	 * overwritten by next save.
+	 * @param loaded the chunk collecting relations of built contacts
+	 * @param result the loaded contacts to update
+	 * @throws ParseException whenever a parse error occurs
+	 * @throws IOException if change log can't be read or a record is not
+	 * valid JSON
+	 */
+	private void replayLog(ContactChunk loaded, LoadedContacts result)
+	    throws ParseException,
+	    IOException
+	{
+		logSize = 0;
+		logRecords = 0;
+		logLength = 0;
+		File logFile = getLogFile();
+		if (!logFile.exists())
+		{
+			return;
+		}
+
+		try (InputStream input = new BufferedInputStream(new FileInputStream(logFile)))
+		{
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			long offset = 0;
+			for (int b = input.read(); b >= 0; b = input.read())
+			{
+				offset++;
+				if (b != '\n')
+				{
+					line.write(b);
+					continue;
+				}
+
+				byte[] bytes = unframeRecord(line.toByteArray(), logRecords);
+				line.reset();
+				if (bytes == null)
+				{
+					System.err.println("Ignoring invalid records at the end of " + logFile);
+					return;
+				}
+				replayRecord(objectMapper.readTree(bytes), loaded, result);
+				logRecords++;
+				logLength = offset;
+			}
+			if (line.size() > 0)
+			{
+				System.err.println("Ignoring incomplete record at the end of " + logFile);
+			}
+		}
+	}
+
+	/**
+	 * Replays a change log record
+	 * @param record the record to replay
+	 * @param loaded the chunk collecting relations of built contacts
+	 * @param result the loaded contacts to update
+	 * @throws ParseException whenever a parse error occurs
+	 */
+	private void replayRecord(JsonNode record,
+	                          ContactChunk loaded,
+	                          LoadedContacts result)
+	    throws ParseException
+	{
+		if (!record.isObject())
+		{
+			throw new ParseException("change log record is not an object", 0);
+		}
+
+		JsonNode dateNode = record.get("date");
+		if (dateNode != null)
+		{
+			date = format.parse(dateNode.asText());
+		}
+		for (JsonNode removedNode : record.path("removed"))
+		{
+			result.remove(removedNode.asText());
+			logSize++;
+		}
+		List<JsonNode> nodes = new ArrayList<>();
+		record.path("contacts").forEach(nodes::add);
+		ContactChunk chunk = new ContactChunk(nodes).call();
+		for (Contact contact : chunk.contacts)
+		{
+			result.remove(contact.toString());
+			result.add(contact);
+			logSize++;
+		}
+		loaded.merge(chunk);
+	}
+
+	/**
+	 * Frames a record before it is appended to the change log.
+	 * This implementation writes records as is.
+	 * @param record the JSON record to append
+	 * @param index the index of this record in the change log
+	 * @return the line to append to the change log (without line separator)
+	 */
+	protected byte[] frameRecord(byte[] record, long index)
+	{
+		return record;
+	}
+
+	/**
+	 * Extracts a record from a change log line.
+	 * This implementation reads lines as is.
+	 * @param line the change log line (without line separator)
+	 * @param index the index of this record in the change log
+	 * @return the JSON record of this line or null if this line is not a valid
+	 * record, in which case this line and the following ones are ignored
+	 */
+	protected byte[] unframeRecord(byte[] line, long index)
+	{
+		return line;
+	}
+
+	/**
+	 * Truncates the change log to its valid records (as found by the last
+	 * {@link #load()}) and syncs it to disk, so invalid or incomplete records
+	 * left by an interrupted save are discarded.
+	 * @throws IOException if change log can't be truncated
+	 */
+	protected void truncateLog() throws IOException
+	{
+		Path logPath = getLogFile().toPath();
+		if (!Files.exists(logPath))
+		{
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE))
+		{
+			if (channel.size() > logLength)
+			{
+				channel.truncate(logLength);
+				channel.force(true);
+			}
+		}
+	}
+
+	/**
+	 * Source of contact nodes read from {@link #file}
+	 */
+	@FunctionalInterface
+	private static interface ContactNodes
+	{
+		/**
+		 * Reads next contact node
+		 * @return the next contact node or null if there is no more contact
+		 * @throws ParseException if next contact is not an object
+		 * @throws IOException if file can't be read or is not valid JSON
+		 */
+		public JsonNode next() throws ParseException, IOException;
+	}
+
+	/**
+	 * Contact nodes of a contacts array
+	 * @param parser the parser positioned on the start of the contacts array
+	 * @return the contact nodes of this array
+	 */
+	private ContactNodes arrayNodes(JsonParser parser)
+	{
+		return () -> (parser.nextToken() == JsonToken.END_ARRAY ? null : objectMapper.readTree(parser));
+	}
+
+	/**
+	 * Contact nodes of a line delimited (NDJSON) file: one per non blank
+	 * line
+	 * @param reader the reader of the file lines
+	 * @return the contact nodes of these lines
+	 */
+	private ContactNodes lineNodes(BufferedReader reader)
+	{
+		int[] lineNumber = new int[] {0};
+		return () -> {
+			String line;
+			do
+			{
+				line = reader.readLine();
+				lineNumber[0]++;
+			}
+			while ((line != null) && line.isBlank());
+			if (line == null)
+			{
+				return null;
+			}
+			JsonNode node = objectMapper.readTree(line);
+			if (!node.isObject())
+			{
+				throw new ParseException("line " + lineNumber[0] + " is not a contact object", 0);
+			}
+			return node;
+		};
+	}
+
+	/**
+	 * Reads contact nodes and builds them into contacts.
+	 * If {@link #chunkSize} is not 0, nodes are grouped in chunks which
+	 * are built in {@link #loadPool}, with a bounded number of pending chunks
+	 * so memory usage does not depend on the number of contacts.
+	 * @param source the contact nodes to read
+	 * @param loaded the chunk collecting built contacts in source order
+	 * @throws ParseException whenever a parse error occurs
+	 * @throws IOException if file can't be read or is not valid JSON
+	 */
+	private void readContacts(ContactNodes source, ContactChunk loaded)
+	    throws ParseException,
+	    IOException
+	{
+		int size = (chunkSize == 0 ? 1 : chunkSize);
+		int maxPending = 2 * Runtime.getRuntime().availableProcessors();
+		Deque<Future<ContactChunk>> pending = new ArrayDeque<>();
+		try
+		{
+			List<JsonNode> nodes = new ArrayList<>(size);
+			JsonNode node;
+			do
+			{
+				node = source.next();
+				if (node != null)
+				{
+					nodes.add(node);
+				}
+				if ((nodes.size() == size) || ((node == null) && !nodes.isEmpty()))
+				{
+					ContactChunk chunk = new ContactChunk(nodes);
+					if (chunkSize == 0)
+					{
+						loaded.merge(chunk.call());
+					}
+					else
+					{
+						if (pending.size() >= maxPending)
+						{
+							loaded.merge(join(pending.removeFirst()));
+						}
+						pending.addLast(loadPool.submit(chunk));
+					}
+					nodes = new ArrayList<>(size);
+				}
+			}
+			while (node != null);
+
+			while (!pending.isEmpty())
+			{
+				loaded.merge(join(pending.removeFirst()));
+			}
+		}
+		finally
+		{
+			for (Future<ContactChunk> future : pending)
+			{
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Waits for a chunk to be built
+	 * @param future the future result of the chunk
+	 * @return the built chunk
+	 * @throws ParseException if a parse error occurred while building
+	 * the chunk
+	 * @throws InterruptedIOException if current thread is interrupted
+	 * while waiting
+	 */
+	private static ContactChunk join(Future<ContactChunk> future)
+	    throws ParseException,
+	    InterruptedIOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("contacts loading interrupted");
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof ParseException)
+			{
+				throw (ParseException) cause;
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Builds a {@link Contact} from a contact node
+	 * @param contactNode the node of a single contact
+	 * @param corporationsMap map recording corporation name of each
+	 * {@link PersonalContact} to complete
+	 * @param employeesMap map recording employees names of each
+	 * {@link CorporateContact} to complete
+	 * @return a new {@link PersonalContact} if contactNode has a "firstname"
+	 * or a new {@link CorporateContact} otherwise
+	 * @throws ParseException whenever a parse error occurs
+	 * @throws NullPointerException if contact node has no name
+	 */
+	private Contact parseContact(JsonNode contactNode,
+	                             Map<PersonalContact, String> corporationsMap,
+	                             Map<String, CorporateContact> employeesMap)
+	    throws ParseException,
+	    NullPointerException
+	{
+		/*
+		 * Name
+		 */
+		JsonNode contactNameNode = contactNode.get("name");
+		Objects.requireNonNull(contactNameNode);
+		String contactName = contactNameNode.asText();
+		Contact contact = null;
+
+		String firstName = null;
+		if (contactNode.has("firstname"))
+		{
+			/*
+			 * First Name (--> PersonalContact)
+			 */
+			firstName = contactNode.get("firstname").asText();
+			PersonalContact pc = new PersonalContact(firstName,
+			                                         contactName,
+			                                         null,
+			                                         null,
+			                                         null,
+			                                         null,
+			                                         null,
+			                                         null);
+			/*
+			 * Corporation
+			 */
+			if (contactNode.has("corporation"))
+			{
+				corporationsMap.put(pc, contactNode.get("corporation").asText());
+			}
+			contact = pc;
+		}
+		else
+		{
+			/*
+			 * No First Name (--> CorporateContact)
+			 */
+			CorporateContact cc = new CorporateContact(contactName,
+			                                           null,
+			                                           null,
+			                                           null,
+			                                           null,
+			                                           null);
+			/*
+			 * Employees [array]
+			 */
+			if (contactNode.has("employees"))
+			{
+				JsonNode employeesNode = contactNode.get("employees");
+				if (!employeesNode.isArray())
+				{
+					throw new ParseException("employees are not an array", 0);
+				}
+				for (JsonNode employeeNode : employeesNode)
+				{
+					employeesMap.put(employeeNode.asText(), cc);
+				}
+			}
+			contact = cc;
+		}
+
+		/*
+		 * Image
+		 */
+		JsonNode imageNode = contactNode.get("image");
+		if (imageNode != null)
+		{
+			// Only the path is set: images are loaded when first displayed
+			contact.setImage(imageURI(imageNode.asText()));
+		}
+
+		/*
+		 * Phone numbers [array]
+		 */
+		JsonNode phonesNode = contactNode.get("phones");
+		if (phonesNode != null)
+		{
+			if (!phonesNode.isArray())
+			{
+				throw new ParseException("phones are not an array", 0);
+			}
+
+			for (JsonNode phoneNode : phonesNode)
+			{
+				JsonNode nameNode = phoneNode.get("name");
+				JsonNode numberNode = phoneNode.get("number");
+				if ((nameNode == null) || (numberNode ==  null))
+				{
+					throw new ParseException("missing name or number node in phone", 0);
+				}
+				contact.addPhoneNumber(nameNode.asText(),
+				                       PhoneNumber.valueOf(numberNode.asText()));
+			}
+		}
+
+		/*
+		 * Addresses [array]
+		 */
+		JsonNode addressesNode = contactNode.get("addresses");
+		if (addressesNode != null)
+		{
+			if (!addressesNode.isArray())
+			{
+				throw new ParseException("addresses are not an array", 0);
+			}
+
+			for (JsonNode addressNode : addressesNode)
+			{
+				JsonNode nameNode = addressNode.get("name");
+				JsonNode numberNode = addressNode.get("number");
+				JsonNode wayNode = addressNode.get("way");
+				JsonNode zipNode = addressNode.get("zipcode");
+				JsonNode cityNode = addressNode.get("city");
+				JsonNode countryNode = addressNode.get("country");
+
+				if ((nameNode == null) || (wayNode == null) || (zipNode == null) || (cityNode == null))
+				{
+					throw new ParseException("missing name, way, zipcode or city node in address", 0);
+				}
+
+				Address address = null;
+				Locale countryLocale = null;
+				int number = -1;
+				if (countryNode != null)
+				{
+					countryLocale = getLocaleFromCountry(countryNode.asText());
+				}
+				if (numberNode != null)
+				{
+					int potentialNumber = numberNode.asInt();
+					if (potentialNumber > 0)
+					{
+						number = potentialNumber;
+					}
+				}
+
+				if (countryLocale == null)
+				{
+					countryLocale = Locale.FRANCE;
+				}
+				try
+				{
+					if (number > 0)
+					{
+						address = new Address(number,
+						                      wayNode.asText(),
+						                      cityNode.asText(),
+						                      zipNode.asText(),
+						                      countryLocale);
+					}
+					else
+					{
+						address = new Address(wayNode.asText(),
+						                      cityNode.asText(),
+						                      zipNode.asText(),
+						                      countryLocale);
+					}
+				}
+				catch (IllegalArgumentException e)
+				{
+					throw new ParseException("invalid address " + nameNode.asText(), 0);
+				}
+				contact.addAddress(nameNode.asText(), address);
+			}
+		}
+
+		/*
+		 * Emails [array]
+		 */
+		JsonNode emailsNode = contactNode.get("emails");
+		if (emailsNode != null)
+		{
+			if (!emailsNode.isArray())
+			{
+				throw new ParseException("emails are not an array", 0);
+			}
+
+			for (JsonNode emailNode : emailsNode)
+			{
+				String[] entry = parseNamedURI(emailNode, "email");
+				URI email = parseURI(entry[1]);
+				if (!checkEmailURI(email))
+				{
+					throw new ParseException("invalid email " + entry[1], 0);
+				}
+				contact.addEmail(entry[0], email);
+			}
+		}
+
+		/*
+		 * Links [array]
+		 */
+		JsonNode linksNode = contactNode.get("links");
+		if (linksNode != null)
+		{
+			if (!linksNode.isArray())
+			{
+				throw new ParseException("links are not an array", 0);
+			}
+
+			for (JsonNode linkNode : linksNode)
+			{
+				String[] entry = parseNamedURI(linkNode, "link");
+				URI link = parseURI(entry[1]);
+				if (!checkLinkURI(link))
+				{
+					throw new ParseException("invalid link " + entry[1], 0);
+				}
+				contact.addLink(entry[0], link);
+			}
+		}
+
+		/*
+		 * Notes [array]
+		 */
+		JsonNode notesNode = contactNode.get("notes");
+		if (notesNode != null)
+		{
+			if (!notesNode.isArray())
+			{
+				throw new ParseException("notes are not an array", 0);
+			}
+
+			for (JsonNode noteNode : notesNode)
+			{
+				JsonNode nameNode = noteNode.get("name");
+				JsonNode contentNode = noteNode.get("content");
+				JsonNode noteDateNode = noteNode.get("date");
+				if ((nameNode == null) || (contentNode == null))
+				{
+					throw new ParseException("missing name or content node in note", 0);
+				}
+				Date noteDate = null;
+				if (noteDateNode != null)
+				{
+					try
+					{
+						noteDate = Date.from(LocalDate.parse(noteDateNode.asText(), NoteDateFormat)
+						    .atStartOfDay(ZoneId.systemDefault())
+						    .toInstant());
+					}
+					catch (DateTimeParseException e)
+					{
+						throw new ParseException("invalid note date " + noteDateNode.asText(),
+						                         e.getErrorIndex());
+					}
+				}
+				try
+				{
+					contact.addNote(nameNode.asText(),
+					                noteDate == null ?
+					                    new Note(contentNode.asText()) :
+					                    new Note(contentNode.asText(), noteDate));
+				}
+				catch (IllegalArgumentException e)
+				{
+					throw new ParseException("empty note " + nameNode.asText(), 0);
+				}
+			}
+		}
+
+		return contact;
+	}
+
+	/**
+	 * Reads a named URI node (such as an email or a link)
+	 * @param node the node to read
+	 * @param kind the kind of URI (for error messages)
+	 * @return the name and URI string of this node
+	 * @throws ParseException if name or uri is missing
+	 */
+	private static String[] parseNamedURI(JsonNode node, String kind)
+	    throws ParseException
+	{
+		JsonNode nameNode = node.get("name");
+		JsonNode uriNode = node.get("uri");
+		if ((nameNode == null) || (uriNode == null))
+		{
+			throw new ParseException("missing name or uri node in " + kind, 0);
+		}
+		return new String[] {nameNode.asText(), uriNode.asText()};
+	}
+
+	/**
+	 * Parses an URI
+	 * @param uriString the URI string to parse
+	 * @return the parsed URI
+	 * @throws ParseException if uriString is not a valid URI
+	 */
+	private static URI parseURI(String uriString) throws ParseException
+	{
 		try
 		{
-			rootNode = objectMapper.readTree(file);
+			return new URI(uriString);
+		}
+		catch (URISyntaxException e)
+		{
+			throw new ParseException("unable to parse " + uriString, e.getIndex());
+		}
+	}
+
+	/**
+	 * Saves provided {@link Set} of {@link Contact} to {@link #file}
+	 * @param set the set od contacts to save to {@link #file}
+	 * @throws NullPointerException if internal {@link #file} is null
+	 * @throws IOException if writing {@link #file} or its change log fails
+	 * @implNote If {@link #file} has already been loaded or saved by this
+	 * loader, only contacts added, modified or removed since then are
+	 * appended to the change log ({@link #getLogFile()}).
+	 * The whole set is written to {@link #file} (and the change log deleted)
+	 * otherwise, or once the change log records more than
+	 * {@link #compactionThreshold} contact changes. A change log which was
+	 * not recorded by this loader is deleted before {@link #file} is
+	 * replaced, so it can never be replayed over contacts it was not
+	 * recorded against.
+	 */
+	@Override
+	public void save(Set<Contact> set) throws NullPointerException, IOException
+	{
+		Objects.requireNonNull(file);
+		if ((saved != null) && (compactionThreshold > 0) && file.exists())
+		{
+			if (appendChanges(set) && (logSize <= compactionThreshold))
+			{
+				return;
+			}
+		}
+
+		Path logPath = getLogFile().toPath();
+		if (saved == null)
+		{
+			/*
+			 * Change log left by another loader: recorded against the
+			 * previous file only
+			 */
+			if (Files.deleteIfExists(logPath))
+			{
+				syncDirectory(logPath);
+			}
+		}
+
+		/*
+		 * Compaction: the change log is only deleted once file is replaced
+		 * so replaying it over the new file provides the same contacts
+		 */
+		write(set);
+		Files.deleteIfExists(logPath);
+		logSize = 0;
+		logRecords = 0;
+		logLength = 0;
+		remember(set);
+	}
+
+	/**
+	 * Appends contacts changed since last load or save to the change log
+	 * @param set the set of contacts to save
+	 * @return true if changes have been appended, false if the change log
+	 * is missing or shorter than expected (so {@link #file} should be
+	 * rewritten)
+	 * @throws IOException if change log can't be written
+	 */
+	private boolean appendChanges(Set<Contact> set) throws IOException
+	{
+		Map<Contact, SavedContact> current = new IdentityHashMap<>();
+		List<String> removed = new ArrayList<>();
+		List<Contact> changed = new ArrayList<>();
+		for (Contact contact : set)
+		{
+			SavedContact state = saved.get(contact);
+			String key = contact.toString();
+			if ((state == null)
+			    || (state.modifications != contact.getModifications())
+			    || !state.key.equals(key))
+			{
+				if ((state != null) && !state.key.equals(key))
+				{
+					removed.add(state.key);
+				}
+				changed.add(contact);
+				state = new SavedContact(contact);
+			}
+			current.put(contact, state);
+		}
+		for (Map.Entry<Contact, SavedContact> entry : saved.entrySet())
+		{
+			if (!current.containsKey(entry.getKey()))
+			{
+				removed.add(entry.getValue().key);
+			}
+		}
+
+		if (removed.isEmpty() && changed.isEmpty())
+		{
+			return true;
+		}
+
+		Date now = Date.from(Instant.now());
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8))
+		{
+			generator.writeStartObject();
+			generator.writeStringField("date", format.format(now));
+			if (!removed.isEmpty())
+			{
+				generator.writeArrayFieldStart("removed");
+				for (String key : removed)
+				{
+					generator.writeString(key);
+				}
+				generator.writeEndArray();
+			}
+			if (!changed.isEmpty())
+			{
+				generator.writeArrayFieldStart("contacts");
+				for (Contact contact : changed)
+				{
+					writeContact(generator, contact);
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndObject();
+		}
+		byte[] line = frameRecord(buffer.toByteArray(), logRecords);
+
+		try (FileChannel channel = FileChannel.open(getLogFile().toPath(),
+		                                            StandardOpenOption.CREATE,
+		                                            StandardOpenOption.WRITE))
+		{
+			if (channel.size() < logLength)
+			{
+				return false;
+			}
+			/*
+			 * Drops any invalid record left by an interrupted save
+			 */
+			channel.truncate(logLength);
+			ByteBuffer bytes = ByteBuffer.allocate(line.length + 1);
+			bytes.put(line);
+			bytes.put((byte) '\n');
+			bytes.flip();
+			long position = logLength;
+			while (bytes.hasRemaining())
+			{
+				position += channel.write(bytes, position);
+			}
+			channel.force(false);
+			logLength = position;
 		}
 		catch (IOException e)
 		{
-			System.err.println("ObjectMapper error reading " + file);
+			System.err.println("Error appending to " + getLogFile());
 			throw e;
 		}
 
-		Objects.requireNonNull(rootNode);
+		logRecords++;
+		logSize += removed.size() + changed.size();
+		saved = current;
+		date = now;
+		return true;
+	}
 
-		/*
-		 * Date
-		 */
-		JsonNode dateNode = rootNode.path("date");
-		if (dateNode.isMissingNode())
+	/**
+	 * Records key and number of modifications of saved contacts
+	 * @param set the saved contacts
+	 */
+	private void remember(Set<Contact> set)
+	{
+		saved = new IdentityHashMap<>();
+		for (Contact contact : set)
 		{
-			throw new ParseException("missing date node", 0);
+			saved.put(contact, new SavedContact(contact));
 		}
-		date = format.parse(dateNode.asText());
+	}
 
-		/*
-		 * Contacts [array]
-		 */
-		JsonNode contactsNode = rootNode.path("contacts");
-		if (contactsNode.isMissingNode())
+	/**
+	 * Writes provided {@link Set} of {@link Contact} to {@link #file}
+	 * @param set the set of contacts to write
+	 * @throws IOException if writing or replacing {@link #file} fails, in
+	 * which case {@link #file} is left unchanged.
+	 * @implNote Contacts are written one at a time with a streaming
+	 * {@link JsonGenerator} to a temporary file next to {@link #file} which is
+	 * synced to disk and then atomically moved over {@link #file} (keeping its
+	 * permissions), so {@link #file} is never left partially written.
+	 * Contacts are compressed while being written according to
+	 * {@link #getCompression()}.
+	 */
+	private void write(Set<Contact> set) throws IOException
+	{
+		Path target = file.toPath().toAbsolutePath();
+		Path temp = createTemp(target);
+		try
 		{
-			throw new ParseException("missing contacts node", 0);
-		}
+			try (FileOutputStream output = new FileOutputStream(temp.toFile());
+			     OutputStream compressed = compress(new BufferedOutputStream(output));
+			     JsonGenerator generator = objectMapper.getFactory()
+			         .createGenerator(compressed, JsonEncoding.UTF8))
+			{
+				date = Date.from(Instant.now());
+				if (lineDelimited)
+				{
+					/*
+					 * One contact per line
+					 */
+					generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+					for (Contact contact : set)
+					{
+						writeContact(generator, contact);
+						generator.writeRaw('\n');
+					}
+				}
+				else
+				{
+					generator.useDefaultPrettyPrinter();
+					generator.writeStartObject();
+					/*
+					 * Date
+					 */
+					generator.writeStringField("date", format.format(date));
 
-		if (!contactsNode.isArray())
+					/*
+					 * Contacts [array]
+					 */
+					generator.writeArrayFieldStart("contacts");
+					for (Contact contact : set)
+					{
+						writeContact(generator, contact);
+					}
+					generator.writeEndArray();
+					generator.writeEndObject();
+				}
+				generator.flush();
+				finish(compressed);
+				output.getFD().sync();
+			}
+			replace(temp, target);
+		}
+		catch (IOException e)
 		{
-			throw new ParseException("contacts node is not an array", 0);
+			System.err.println("JsonGenerator error writing " + file);
+			Files.deleteIfExists(temp);
+			throw e;
 		}
+	}
 
-		Set<Contact> result = new TreeSet<>();
-
-		/*
-		 * Map recording corporation (CorporateContact) name for each
-		 * PersonalContact so it can be retrieved after parsing is completed
-		 */
-		Map<PersonalContact, String> corporationsMap = new TreeMap<>();
-
+	/**
+	 * Writes a contact object
+	 * @param generator the generator to write to
+	 * @param contact the contact to write
+	 * @throws IOException if writing fails
+	 */
+	private void writeContact(JsonGenerator generator, Contact contact)
+	    throws IOException
+	{
+		generator.writeStartObject();
 		/*
-		 * Map recording Employee's name for each CorporateContact
-		 * so employees (PersonalContact) can be retrieved after parsing
-		 * is completed
+		 * Name
 		 */
-		Map<String, CorporateContact> employeesMap = new TreeMap<>();
-
-		for (JsonNode contactNode : contactsNode)
+		generator.writeStringField("name", contact.getName());
+		if (contact instanceof PersonalContact)
 		{
+			PersonalContact pc = (PersonalContact) contact;
 			/*
-			 * Name
+			 * First Name
 			 */
-			JsonNode contactNameNode = contactNode.get("name");
-			Objects.requireNonNull(contactNameNode);
-			String contactName = contactNameNode.asText();
-			Contact contact = null;
-
-			String firstName = null;
-			if (contactNode.has("firstname"))
+			generator.writeStringField("firstname", pc.getFirstName());
+			CorporateContact cc = pc.getCorporation();
+			if (cc != null)
 			{
-				/*
-				 * First Name (--> PersonalContact)
-				 */
-				firstName = contactNode.get("firstname").asText();
-				PersonalContact pc = new PersonalContact(firstName,
-				                                         contactName,
-				                                         null,
-				                                         null,
-				                                         null,
-				                                         null,
-				                                         null,
-				                                         null);
 				/*
 				 * Corporation
 				 */
-				if (contactNode.has("corporation"))
-				{
-					corporationsMap.put(pc, contactNode.get("corporation").asText());
-				}
-				contact = pc;
+				generator.writeStringField("corporation", cc.toString());
 			}
-			else
+		}
+		if (contact.getImagePath() != null)
+		{
+			/*
+			 * Image
+			 */
+			generator.writeStringField("image", contact.getImagePath().getSchemeSpecificPart());
+		}
+		if (contact instanceof CorporateContact)
+		{
+			CorporateContact cc = (CorporateContact) contact;
+			Set<PersonalContact> employees = cc.getEmployees();
+			if (!employees.isEmpty())
 			{
-				/*
-				 * No First Name (--> CorporateContact)
-				 */
-				CorporateContact cc = new CorporateContact(contactName,
-				                                           null,
-				                                           null,
-				                                           null,
-				                                           null,
-				                                           null);
 				/*
 				 * Employees [array]
 				 */
-				if (contactNode.has("employees"))
+				generator.writeArrayFieldStart("employees");
+				for (PersonalContact pc : employees)
 				{
-					JsonNode employeesNode = contactNode.get("employees");
-					if (!employeesNode.isArray())
-					{
-						throw new ParseException("employees are not an array", 0);
-					}
-					for (JsonNode employeeNode : employeesNode)
-					{
-						employeesMap.put(employeeNode.asText(), cc);
-					}
+					generator.writeString(pc.toString());
 				}
-				contact = cc;
+				generator.writeEndArray();
 			}
+		}
 
-			/*
-			 * Image
-			 */
-			JsonNode imageNode = contactNode.get("image");
-			if (imageNode != null)
+		/*
+		 * Phone Numbers [array]
+		 */
+		Set<String> keys = contact.getPhoneNumberKeySet();
+		if (!keys.isEmpty())
+		{
+			generator.writeArrayFieldStart("phones");
+			for (String key : keys)
 			{
-				// relative path
-				String imagePath = imageNode.asText();
-				URL urlValue = getClass().getResource(imagePath);
-				String uriValue = null;
-				if (urlValue != null) // valid relative path
-				{
-					uriValue = urlValue.getFile();
-				}
-				else // invalid relative path, trying absolute path
-				{
-					uriValue = imagePath;
-				}
-				try
-				{
-					URI imageURI = new URI("file:" + uriValue);
-					// JSONLoader#load() : set Image in contact
-
-				}
-				catch (URISyntaxException e)
-				{
-					throw new ParseException("unable to parse " + uriValue
-					    + " image path", 0);
-				}
+				generator.writeStartObject();
+				generator.writeStringField("name", key);
+				generator.writeStringField("number", contact.getPhoneNumber(key).toString());
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		}
 
-			/*
-			 * Phone numbers [array]
-			 */
-			JsonNode phonesNode = contactNode.get("phones");
-			if (phonesNode != null)
+		/*
+		 * Emails [array]
+		 */
+		keys = contact.getEmailKeySet();
+		if (!keys.isEmpty())
+		{
+			generator.writeArrayFieldStart("emails");
+			for (String key : keys)
 			{
-				if (!phonesNode.isArray())
-				{
-					throw new ParseException("phones are not an array", 0);
-				}
-
-				for (JsonNode phoneNode : phonesNode)
-				{
-					JsonNode nameNode = phoneNode.get("name");
-					JsonNode numberNode = phoneNode.get("number");
-					if ((nameNode == null) || (numberNode ==  null))
-					{
-						throw new ParseException("missing name or number node in phone", 0);
-					}
-					contact.addPhoneNumber(nameNode.asText(),
-					                       PhoneNumber.parse(numberNode.asText()));
-				}
+				generator.writeStartObject();
+				generator.writeStringField("name", key);
+				generator.writeStringField("uri", contact.getEmail(key).toString());
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		}
 
-			/*
-			 * Addresses [array]
-			 */
-			JsonNode addressesNode = contactNode.get("addresses");
-			if (addressesNode != null)
+		/*
+		 * Addresses [array]
+		 */
+		keys = contact.getAddressKeySet();
+		if (!keys.isEmpty())
+		{
+			generator.writeArrayFieldStart("addresses");
+			for (String key : keys)
 			{
-				if (!addressesNode.isArray())
+				Address address = contact.getAddress(key);
+				generator.writeStartObject();
+				generator.writeStringField("name", key);
+				if (address.getNumber().isPresent())
 				{
-					throw new ParseException("addresses are not an array", 0);
+					generator.writeNumberField("number", address.getNumber().get());
 				}
-
-				for (JsonNode addressNode : addressesNode)
+				generator.writeStringField("way", address.getWay());
+				generator.writeStringField("zipcode", address.getZipCode());
+				generator.writeStringField("city", address.getCity());
+				if (address.getLocale() != null)
 				{
-					JsonNode nameNode = addressNode.get("name");
-					JsonNode numberNode = addressNode.get("number");
-					JsonNode wayNode = addressNode.get("way");
-					JsonNode zipNode = addressNode.get("zipcode");
-					JsonNode cityNode = addressNode.get("city");
-					JsonNode countryNode = addressNode.get("country");
-
-					if ((nameNode == null) || (wayNode == null) || (zipNode == null) || (cityNode == null))
-					{
-						throw new ParseException("missing name, way, zipcode or city node in address", 0);
-					}
-
-					Address address = null;
-					Locale countryLocale = null;
-					int number = -1;
-					if (countryNode != null)
-					{
-						countryLocale = getLocaleFromCountry(countryNode.asText());
-					}
-					if (numberNode != null)
-					{
-						int potentialNumber = numberNode.asInt();
-						if (potentialNumber > 0)
-						{
-							number = potentialNumber;
-						}
-					}
-
-					// JSONLoader#load() : complete reading Addresses [array]
-
+					generator.writeStringField("country", address.getCountry());
 				}
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		}
 
-			/*
-			 * Emails [array]
-			 */
-			JsonNode emailsNode = contactNode.get("emails");
-			if (emailsNode != null)
+		/*
+		 * Links [array]
+		 */
+		keys = contact.getLinksKeySet();
+		if (!keys.isEmpty())
+		{
+			generator.writeArrayFieldStart("links");
+			for (String key : keys)
 			{
-				if (!emailsNode.isArray())
-				{
-					throw new ParseException("emails are not an array", 0);
-				}
-
-				for (JsonNode emailNode : emailsNode)
-				{
-					// JSONLoader#load() : complete reading Emails [array]
-				}
+				generator.writeStartObject();
+				generator.writeStringField("name", key);
+				generator.writeStringField("uri", contact.getLink(key).toString());
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		}
 
-			/*
-			 * Links [array]
-			 */
-			JsonNode linksNode = contactNode.get("links");
-			if (linksNode != null)
+		/*
+		 * Notes [array]
+		 */
+		keys = contact.getNotesKeySet();
+		if (!keys.isEmpty())
+		{
+			generator.writeArrayFieldStart("notes");
+			for (String key : keys)
 			{
-				// JSONLoader#load() : complete reading Links [array]
+				Note note = contact.getNote(key);
+				generator.writeStartObject();
+				generator.writeStringField("name", key);
+				generator.writeStringField("date", format.format(note.getDate()));
+				generator.writeStringField("content", note.getContent());
+				generator.writeEndObject();
 			}
+			generator.writeEndArray();
+		}
 
-			/*
-			 * Notes [array]
-			 */
-			JsonNode notesNode = contactNode.get("notes");
-			if (notesNode != null)
-			{
-				//JSONLoader#load() : complete reading Notes [array]
-			}
+		generator.writeEndObject();
+	}
 
-			result.add(contact);
-		}
+	/**
+	 * Consecutive contact nodes of the contacts array built into contacts
+	 * (possibly by a worker thread), along with the relations found in these
+	 * contacts which can only be resolved once all contacts are built.
+	 */
+	private class ContactChunk implements Callable<ContactChunk>
+	{
+		/**
+		 * Contact nodes to build
+		 */
+		private final List<JsonNode> nodes;
+
+		/**
+		 * Built contacts (in nodes order)
+		 */
+		private final List<Contact> contacts;
+
+		/**
+		 * Map recording corporation (CorporateContact) name for each
+		 * PersonalContact so it can be retrieved after parsing is completed.
+		 * Contacts are recorded by identity since personal contacts with the
+		 * same name compare as equal.
+		 */
+		private final Map<PersonalContact, String> corporationsMap;
 
-		// --------------------------------------------------------------------
-		// Add employees to corporate contacts
-		// Note: the "Add corporations" below does the exact same job
-		// --------------------------------------------------------------------
-		for (Map.Entry<String, CorporateContact> entry : employeesMap.entrySet())
+		/**
+		 * Map recording Employee's name for each CorporateContact
+		 * so employees (PersonalContact) can be retrieved after parsing
+		 * is completed
+		 */
+		private final Map<String, CorporateContact> employeesMap;
+
+		/**
+		 * Valued constructor
+		 * @param nodes the contact nodes to build
+		 */
+		private ContactChunk(List<JsonNode> nodes)
 		{
-			String employeeName = entry.getKey();
-			CorporateContact corporation = entry.getValue();
-			// find employee
-			for (Contact c : result)
-			{
-				if (c instanceof PersonalContact)
-				{
-					PersonalContact pc = (PersonalContact) c;
-					if (pc.toString().equals(employeeName))
-					{
-						corporation.add(pc);
-					}
-				}
-			}
+			this.nodes = nodes;
+			contacts = new ArrayList<>(nodes.size());
+			corporationsMap = new IdentityHashMap<>();
+			employeesMap = new HashMap<>();
 		}
 
-		// --------------------------------------------------------------------
-		// Add corporations to personal contacts
-		// Note: the "Add employees" above does the exact same job
-		// --------------------------------------------------------------------
-		for (Map.Entry<PersonalContact, String> entry : corporationsMap.entrySet())
+		/**
+		 * Builds all {@link #nodes} into {@link #contacts}
+		 * @return this chunk
+		 * @throws ParseException whenever a parse error occurs
+		 */
+		@Override
+		public ContactChunk call() throws ParseException
 		{
-			PersonalContact employee = entry.getKey();
-			String corporationName = entry.getValue();
-			// find corporation
-			for (Contact c : result)
+			for (JsonNode node : nodes)
 			{
-				if (c instanceof CorporateContact)
-				{
-					CorporateContact cc = (CorporateContact) c;
-					if (cc.toString().equals(corporationName))
-					{
-						employee.setCorporation(cc);
-					}
-				}
+				contacts.add(parseContact(node, corporationsMap, employeesMap));
 			}
+			nodes.clear();
+			return this;
 		}
 
-		return result;
+		/**
+		 * Appends contacts and relations of a following chunk to this chunk
+		 * @param chunk the built chunk to append
+		 */
+		private void merge(ContactChunk chunk)
+		{
+			contacts.addAll(chunk.contacts);
+			corporationsMap.putAll(chunk.corporationsMap);
+			employeesMap.putAll(chunk.employeesMap);
+		}
 	}
 
 	/**
-	 * Saves provided {@link Set} of {@link Contact} to {@link #file}
-	 * @param set the set od contacts to save to {@link #file}
-	 * @throws NullPointerException if internal {@link #file} is null
-	 * @throws IOException if {@link ObjectMapper} write fails.
+	 * Contacts loaded from {@link #file} and its change log, indexed by name
+	 * (as written in "employees", "corporation" and "removed" nodes) so
+	 * they can be replaced and relations can be resolved in a single pass.
 	 */
-	@Override
-	public void save(Set<Contact> set) throws NullPointerException, IOException
+	private static class LoadedContacts
 	{
-		Objects.requireNonNull(file);
-		ObjectNode rootNode = objectMapper.createObjectNode();
-		/*
-		 * Date
+		/**
+		 * Loaded contacts
 		 */
-		rootNode.putPOJO("date", Date.from(Instant.now()));
+		private final Set<Contact> contacts;
 
-		ArrayNode contactsArray = objectMapper.createArrayNode();
-		for (Contact contact : set)
+		/**
+		 * Loaded personal contacts indexed by name
+		 */
+		private final Map<String, PersonalContact> personalContacts;
+
+		/**
+		 * Loaded corporate contacts indexed by name
+		 */
+		private final Map<String, CorporateContact> corporateContacts;
+
+		/**
+		 * Default constructor
+		 */
+		private LoadedContacts()
 		{
-			ObjectNode contactNode = objectMapper.createObjectNode();
-			/*
-			 * Name
-			 */
-			contactNode.put("name", contact.getName());
-			if (contact instanceof PersonalContact)
+			contacts = new TreeSet<>();
+			personalContacts = new HashMap<>();
+			corporateContacts = new HashMap<>();
+		}
+
+		/**
+		 * Adds a contact
+		 * @param contact the contact to add
+		 */
+		private void add(Contact contact)
+		{
+			if (contacts.add(contact))
 			{
-				PersonalContact pc = (PersonalContact) contact;
-				/*
-				 * First Name
-				 */
-				contactNode.put("firstname", pc.getFirstName());
-				CorporateContact cc = pc.getCorporation();
-				if (cc != null)
+				if (contact instanceof PersonalContact)
 				{
-					/*
-					 * Corporation
-					 */
-					contactNode.put("corporation", cc.toString());
+					personalContacts.put(contact.toString(), (PersonalContact) contact);
+				}
+				else
+				{
+					corporateContacts.put(contact.toString(), (CorporateContact) contact);
 				}
 			}
-			if (contact.getImagePath() != null)
+		}
+
+		/**
+		 * Removes the contact with provided name (if any)
+		 * @param name the name of the contact to remove
+		 */
+		private void remove(String name)
+		{
+			Contact contact = personalContacts.remove(name);
+			if (contact == null)
 			{
-				/*
-				 * Image
-				 */
-				contactNode.put("image", contact.getImagePath().getSchemeSpecificPart());
+				contact = corporateContacts.remove(name);
 			}
-			if (contact instanceof CorporateContact)
+			if (contact != null)
 			{
-				CorporateContact cc = (CorporateContact) contact;
-				Set<PersonalContact> employees = cc.getEmployees();
-				if (!employees.isEmpty())
-				{
-					/*
-					 * Employees [array]
-					 */
-					ArrayNode employeesArray = objectMapper.createArrayNode();
-					for (PersonalContact pc : employees)
-					{
-						// JSONLoader#save(Set<Contact>) : add PersonalContact's name to employeesArray
-					}
-
-					contactNode.putPOJO("employees", employeesArray);
-				}
+				contacts.remove(contact);
 			}
+		}
 
-			/*
-			 * Phone Numbers [array]
-			 */
-			Set<String> keys = contact.getPhoneNumberKeySet();
-			if (!keys.isEmpty())
+		/**
+		 * Resolves relations between loaded contacts
+		 * @param corporationsMap map recording corporation name of each
+		 * {@link PersonalContact}
+		 * @param employeesMap map recording employees names of each
+		 * {@link CorporateContact}
+		 */
+		private void link(Map<PersonalContact, String> corporationsMap,
+		                  Map<String, CorporateContact> employeesMap)
+		{
+			// ----------------------------------------------------------------
+			// Add employees to corporate contacts
+			// ----------------------------------------------------------------
+			for (Map.Entry<String, CorporateContact> entry : employeesMap.entrySet())
 			{
-				ArrayNode array = objectMapper.createArrayNode();
-				for (String key : keys)
+				CorporateContact corporation = entry.getValue();
+				PersonalContact employee = personalContacts.get(entry.getKey());
+				if ((employee != null) && (corporateContacts.get(corporation.toString()) == corporation))
 				{
-					ObjectNode eltNode = objectMapper.createObjectNode();
-					eltNode.put("name", key);
-					eltNode.put("number", contact.getPhoneNumber(key).toString());
-					array.add(eltNode);
+					corporation.add(employee);
 				}
-				contactNode.putPOJO("phones", array);
 			}
 
-			/*
-			 * Emails [array]
-			 */
-			keys = contact.getEmailKeySet();
-			if (!keys.isEmpty())
+			// ----------------------------------------------------------------
+			// Add corporations to personal contacts
+			// ----------------------------------------------------------------
+			for (Map.Entry<PersonalContact, String> entry : corporationsMap.entrySet())
 			{
-				ArrayNode array = objectMapper.createArrayNode();
-				for (String key : keys)
+				PersonalContact employee = entry.getKey();
+				CorporateContact corporation = corporateContacts.get(entry.getValue());
+				if ((corporation != null) && (personalContacts.get(employee.toString()) == employee))
 				{
-					// JSONLoader#save(Set<Contact>) : add named email to emails array
+					employee.setCorporation(corporation);
 				}
-				contactNode.putPOJO("emails", array);
-			}
-
-			/*
-			 * Addresses [array]
-			 */
-			keys = contact.getAddressKeySet();
-			if (!keys.isEmpty())
-			{
-				ArrayNode array = objectMapper.createArrayNode();
-
-				// JSONLoader#save(Set<Contact>) : add named addresses to addresses array
-
-				contactNode.putPOJO("addresses", array);
 			}
+		}
+	}
 
-			/*
-			 * Links [array]
-			 */
-			keys = contact.getLinksKeySet();
-			if (!keys.isEmpty())
-			{
-				ArrayNode array = objectMapper.createArrayNode();
-
-				// JSONLoader#save(Set<Contact>) : add named links to links array
-
-				contactNode.putPOJO("links", array);
-			}
-
-			/*
-			 * Notes [array]
-			 */
-			keys = contact.getNotesKeySet();
-			if (!keys.isEmpty())
-			{
-				ArrayNode array = objectMapper.createArrayNode();
-
-				//JSONLoader#save(Set<Contact>) : add named notes to notes array
-
-				contactNode.putPOJO("notes", array);
-			}
+	/**
+	 * Name and number of modifications of a contact when it was last loaded
+	 * or saved
+	 */
+	private static class SavedContact
+	{
+		/**
+		 * Name of the contact
+		 */
+		private final String key;
 
-			contactsArray.add(contactNode);
-		}
+		/**
+		 * Number of modifications of the contact
+		 */
+		private final long modifications;
 
-		/*
-		 * Contacts [array]
+		/**
+		 * Valued constructor
+		 * @param contact the loaded or saved contact
 		 */
-		rootNode.putPOJO("contacts", contactsArray);
-		objectMapper.writeValue(file, rootNode);
+		private SavedContact(Contact contact)
+		{
+			key = contact.toString();
+			modifications = contact.getModifications();
+		}
 	}
 }
@@ -0,0 +1,189 @@
+package model;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Journaled Loader persisting contacts in a snapshot and a write-ahead
+ * journal.
+ * <ul>
+ * <li>The snapshot is {@link #file} itself, a JSON file which can also be
+ * read by a {@link JSONLoader}.</li>
+ * <li>The journal ({@link #getLogFile()}) records contacts added, modified or
+ * removed since the snapshot: each save appends a single record which is
+ * synced to disk before {@link #save(Set)} returns, so writes are
+ * proportional to changes.</li>
+ * <li>Each journal record is prefixed by its sequence number and a CRC-32
+ * checksum so records torn or corrupted by a crash are detected.</li>
+ * <li>{@link #load()} reads the snapshot, replays all valid journal records
+ * and truncates the journal after the last valid one (crash recovery).</li>
+ * <li>Once the journal records more than {@link #getCompactionThreshold()}
+ * contact changes, a new snapshot is written and the journal is
+ * restarted.</li>
+ * </ul>
+ */
+public class JournalLoader extends JSONLoader
+{
+	/**
+	 * Default number of contact changes recorded in the journal before a new
+	 * snapshot is written
+	 */
+	public static final int DefaultSnapshotInterval = 4096;
+
+	/**
+	 * Extension of the journal file added to snapshot {@link #file} name
+	 */
+	public static final String JournalExtension = ".wal";
+
+	/**
+	 * Separator between fields of a journal line
+	 */
+	private static final byte FieldSeparator = ' ';
+
+	/**
+	 * Constructor with provided snapshot file
+	 * @param file the snapshot file to use
+	 */
+	public JournalLoader(File file)
+	{
+		super(file);
+		setCompactionThreshold(DefaultSnapshotInterval);
+	}
+
+	/**
+	 * Default constructor
+	 */
+	public JournalLoader()
+	{
+		this(null);
+	}
+
+	/**
+	 * Journal file of {@link #file}
+	 * @return the journal file of {@link #file}
+	 * @throws NullPointerException if internal {@link #file} is null
+	 */
+	@Override
+	public File getLogFile()
+	{
+		return new File(file.getPath() + JournalExtension);
+	}
+
+	/**
+	 * Loads the latest snapshot and replays the journal
+	 * @return the set of contacts loaded from the snapshot and the journal
+	 * @throws FileNotFoundException if snapshot can't be opened
+	 * @throws ParseException whenever a parse error occurs
+	 * @throws NullPointerException whenever an unexpected JsonNode is
+	 * encountered or when internal {@link #file} is not set yet
+	 * @throws IOException if snapshot or journal can't be read or if journal
+	 * can't be truncated after its last valid record
+	 */
+	@Override
+	public Set<Contact> load()
+	    throws FileNotFoundException,
+	    ParseException,
+	    NullPointerException,
+	    IOException
+	{
+		Set<Contact> result = super.load();
+		truncateLog();
+		return result;
+	}
+
+	/**
+	 * Frames a journal record as "sequence checksum record"
+	 * @param record the JSON record to append
+	 * @param index the sequence number of this record in the journal
+	 * @return the journal line of this record (without line separator)
+	 */
+	@Override
+	protected byte[] frameRecord(byte[] record, long index)
+	{
+		byte[] header = (index + " " + Long.toHexString(checksum(index, record, 0, record.length)) + " ")
+		    .getBytes(StandardCharsets.US_ASCII);
+		byte[] line = Arrays.copyOf(header, header.length + record.length);
+		System.arraycopy(record, 0, line, header.length, record.length);
+		return line;
+	}
+
+	/**
+	 * Extracts a record from a journal line and checks its sequence number
+	 * and checksum
+	 * @param line the journal line (without line separator)
+	 * @param index the expected sequence number of this record
+	 * @return the JSON record of this line or null if this line is torn,
+	 * corrupted or out of sequence
+	 */
+	@Override
+	protected byte[] unframeRecord(byte[] line, long index)
+	{
+		int first = indexOf(line, 0);
+		int second = (first < 0 ? -1 : indexOf(line, first + 1));
+		if (second < 0)
+		{
+			return null;
+		}
+
+		try
+		{
+			long sequence = Long.parseLong(new String(line, 0, first, StandardCharsets.US_ASCII));
+			long checksum = Long.parseLong(new String(line,
+			                                          first + 1,
+			                                          second - first - 1,
+			                                          StandardCharsets.US_ASCII),
+			                               16);
+			int start = second + 1;
+			if ((sequence != index)
+			    || (checksum != checksum(index, line, start, line.length - start)))
+			{
+				return null;
+			}
+			return Arrays.copyOfRange(line, start, line.length);
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Index of the next {@link #FieldSeparator} in a journal line
+	 * @param line the journal line
+	 * @param from the index to start searching from
+	 * @return the index of the next field separator or -1 if there is none
+	 */
+	private static int indexOf(byte[] line, int from)
+	{
+		for (int i = from; i < line.length; i++)
+		{
+			if (line[i] == FieldSeparator)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * CRC-32 checksum of a journal record along with its sequence number
+	 * @param index the sequence number of the record
+	 * @param bytes the bytes containing the record
+	 * @param offset the offset of the record in bytes
+	 * @param length the length of the record
+	 * @return the checksum of this record
+	 */
+	private static long checksum(long index, byte[] bytes, int offset, int length)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(Long.toString(index).getBytes(StandardCharsets.US_ASCII));
+		crc.update(bytes, offset, length);
+		return crc.getValue();
+	}
+}
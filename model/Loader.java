@@ -1,15 +1,36 @@
 package model;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.SecureRandom;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Abstract class handling file input/output for {@link ContactManager}
@@ -28,9 +49,104 @@ public abstract class Loader
 	protected Date date;
 
 	/**
-	 * Country to Locale map to convert country name to {@link Locale}
+	 * Compression of {@link #file}.
+	 * @implNote Initialized from {@link #file} extension, then updated by
+	 * {@link #openInput()} to the compression detected in the loaded file so
+	 * saving keeps the format of the loaded file.
 	 */
-	private static Map<String, Locale> countryLocale = null;
+	protected Compression compression;
+
+	/**
+	 * Size of the buffers used by compressed streams
+	 */
+	public static final int StreamBufferSize = 64 * 1024;
+
+	/**
+	 * Compression of contact files
+	 */
+	public static enum Compression
+	{
+		/**
+		 * Uncompressed file
+		 */
+		NONE,
+		/**
+		 * gzip file (RFC 1952) starting with bytes 1f 8b, usually with a
+		 * ".gz" extension
+		 */
+		GZIP,
+		/**
+		 * zlib deflate stream (RFC 1950) whose 2 bytes header is a multiple
+		 * of 31 (e.g. 78 9c), usually with a ".zz" extension
+		 */
+		DEFLATE;
+
+		/**
+		 * Compression inferred from file name extension
+		 * @param file the file (or null)
+		 * @return {@link #GZIP} for ".gz" files, {@link #DEFLATE} for ".zz"
+		 * or ".deflate" files and {@link #NONE} otherwise
+		 */
+		public static Compression of(File file)
+		{
+			if (file != null)
+			{
+				String name = file.getName().toLowerCase(Locale.ROOT);
+				if (name.endsWith(".gz"))
+				{
+					return GZIP;
+				}
+				if (name.endsWith(".zz") || name.endsWith(".deflate"))
+				{
+					return DEFLATE;
+				}
+			}
+			return NONE;
+		}
+
+		/**
+		 * Detects compression from the first bytes (magic bytes) of a stream
+		 * @param input the stream to examine, which should support
+		 * {@link InputStream#mark(int)}. Its position is left unchanged.
+		 * @return the compression of this stream
+		 * @throws IOException if input can't be read or reset
+		 */
+		public static Compression detect(InputStream input) throws IOException
+		{
+			input.mark(2);
+			int first = input.read();
+			int second = input.read();
+			input.reset();
+			if ((first < 0) || (second < 0))
+			{
+				return NONE;
+			}
+			if ((first == 0x1f) && (second == 0x8b))
+			{
+				return GZIP;
+			}
+			if (((first & 0x0f) == Deflater.DEFLATED)
+			    && ((first >> 4) <= 7)
+			    && ((((first << 8) | second) % 31) == 0))
+			{
+				return DEFLATE;
+			}
+			return NONE;
+		}
+	}
+
+	/**
+	 * Country to Locale map to convert country name to {@link Locale}.
+	 * @implNote Built once when this class is initialized and never modified
+	 * afterwards so it can be read concurrently by loaders parsing contacts
+	 * on several threads.
+	 */
+	private static final Map<String, Locale> countryLocale = buildCountryLocale();
+
+	/**
+	 * Random source of {@link #createTemp(Path)} file names
+	 */
+	private static final SecureRandom tempNames = new SecureRandom();
 
 	/**
 	 * Constructor with provided file
@@ -40,6 +156,7 @@ public abstract class Loader
 	{
 		this.file = file;
 		date = null;
+		compression = Compression.of(file);
 	}
 
 	/**
@@ -67,6 +184,26 @@ public abstract class Loader
 	public void setFile(File file)
 	{
 		this.file = file;
+		compression = Compression.of(file);
+	}
+
+	/**
+	 * Get the compression of {@link #file}
+	 * @return the compression detected in last loaded file or used to save
+	 * {@link #file}
+	 */
+	public Compression getCompression()
+	{
+		return compression;
+	}
+
+	/**
+	 * Set the compression used to save {@link #file}
+	 * @param compression the compression to use (or null for no compression)
+	 */
+	public void setCompression(Compression compression)
+	{
+		this.compression = (compression == null ? Compression.NONE : compression);
 	}
 
 	/**
@@ -103,6 +240,243 @@ public abstract class Loader
 		throws NullPointerException,
 		IOException;
 
+	/**
+	 * Opens {@link #file} for reading, decompressing it if it is
+	 * compressed, and records its {@link #compression}
+	 * @return a buffered stream of the (decompressed) contents of
+	 * {@link #file}
+	 * @throws FileNotFoundException if file can't be opened
+	 * @throws IOException if file can't be read
+	 * @throws NullPointerException if internal {@link #file} is null
+	 */
+	protected InputStream openInput()
+	    throws FileNotFoundException,
+	    IOException,
+	    NullPointerException
+	{
+		InputStream input = new BufferedInputStream(new FileInputStream(file), StreamBufferSize);
+		try
+		{
+			compression = Compression.detect(input);
+			switch (compression)
+			{
+				case GZIP:
+					return new BufferedInputStream(new GZIPInputStream(input, StreamBufferSize),
+					                               StreamBufferSize);
+				case DEFLATE:
+					return new BufferedInputStream(new InflaterInputStream(input,
+					                                                       new Inflater(),
+					                                                       StreamBufferSize)
+					{
+						@Override
+						public void close() throws IOException
+						{
+							try
+							{
+								super.close();
+							}
+							finally
+							{
+								inf.end();
+							}
+						}
+					}, StreamBufferSize);
+				default:
+					return input;
+			}
+		}
+		catch (IOException e)
+		{
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Wraps an output stream to compress data according to
+	 * {@link #compression}
+	 * @param output the (buffered) stream to write compressed data to
+	 * @return a stream compressing data written to output (or output itself
+	 * if there is no compression). Should be {@link #finish(OutputStream)
+	 * finished} before output is synced.
+	 * @throws IOException if compression header can't be written
+	 */
+	protected OutputStream compress(OutputStream output) throws IOException
+	{
+		switch (compression)
+		{
+			case GZIP:
+				return new GZIPOutputStream(output, StreamBufferSize);
+			case DEFLATE:
+				return new DeflaterOutputStream(output, new Deflater(), StreamBufferSize)
+				{
+					@Override
+					public void close() throws IOException
+					{
+						try
+						{
+							super.close();
+						}
+						finally
+						{
+							def.end();
+						}
+					}
+				};
+			default:
+				return output;
+		}
+	}
+
+	/**
+	 * Completes the data written to a stream obtained from
+	 * {@link #compress(OutputStream)} and flushes it
+	 * @param output the stream to finish
+	 * @throws IOException if data can't be written
+	 */
+	protected static void finish(OutputStream output) throws IOException
+	{
+		if (output instanceof DeflaterOutputStream)
+		{
+			((DeflaterOutputStream) output).finish();
+		}
+		output.flush();
+	}
+
+	/**
+	 * Creates an empty temporary file next to a file to write, so it can
+	 * then be moved over this file by {@link #replace(Path, Path)}
+	 * @param target the file to write
+	 * @return the path of the new temporary file
+	 * @throws IOException if the file can't be created
+	 * @implNote Unlike {@link Files#createTempFile(Path, String, String,
+	 * java.nio.file.attribute.FileAttribute...)}, which restricts access to
+	 * its owner, the file is created with default permissions so newly
+	 * saved files get the same permissions as any other new file.
+	 */
+	protected static Path createTemp(Path target) throws IOException
+	{
+		Path directory = target.toAbsolutePath().getParent();
+		String prefix = target.getFileName().toString() + '.';
+		while (true)
+		{
+			Path temp = directory.resolve(prefix
+			    + Long.toUnsignedString(tempNames.nextLong(), Character.MAX_RADIX)
+			    + ".tmp");
+			try
+			{
+				return Files.createFile(temp);
+			}
+			catch (FileAlreadyExistsException e)
+			{
+				// try another name
+			}
+		}
+	}
+
+	/**
+	 * Replaces a file by another one, atomically if the file system allows it
+	 * @param source the file replacing target
+	 * @param target the file to replace
+	 * @throws IOException if the move fails
+	 * @implNote The POSIX permissions of target (if it exists) are copied to
+	 * source before the move so replacing a file does not change who can
+	 * read it, and the directory is synced after the move so the new file
+	 * survives a crash.
+	 */
+	protected static void replace(Path source, Path target) throws IOException
+	{
+		if (Files.exists(target)
+		    && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class))
+		{
+			Files.setPosixFilePermissions(source, Files.getPosixFilePermissions(target));
+		}
+		try
+		{
+			Files.move(source,
+			           target,
+			           StandardCopyOption.REPLACE_EXISTING,
+			           StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		syncDirectory(target);
+	}
+
+	/**
+	 * Syncs the directory containing a file to disk, so files created, moved
+	 * or deleted in this directory survive a crash
+	 * @param file the file whose directory should be synced
+	 */
+	protected static void syncDirectory(Path file)
+	{
+		try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(),
+		                                              StandardOpenOption.READ))
+		{
+			directory.force(true);
+		}
+		catch (IOException e)
+		{
+			// directories can't be opened or synced on some platforms (Windows)
+		}
+	}
+
+	/**
+	 * Image URI corresponding to an image path stored in a file
+	 * @param imagePath the stored path: either a resource path (relative to
+	 * this class) or a file path
+	 * @return the file URI of the resource if it exists or of the file path
+	 * otherwise
+	 * @throws ParseException if the URI can't be built or is not a valid image
+	 * path
+	 * @see Contact#setImage(URI)
+	 */
+	protected static URI imageURI(String imagePath) throws ParseException
+	{
+		// relative path
+		URL urlValue = Loader.class.getResource(imagePath);
+		String uriValue = null;
+		if (urlValue != null) // valid relative path
+		{
+			uriValue = urlValue.getFile();
+		}
+		else // invalid relative path, trying absolute path
+		{
+			uriValue = imagePath;
+		}
+		try
+		{
+			URI imageURI = new URI("file:" + uriValue);
+			ImageCache.validate(imageURI);
+			return imageURI;
+		}
+		catch (URISyntaxException | IllegalArgumentException e)
+		{
+			throw new ParseException("unable to parse " + uriValue
+			    + " image path", 0);
+		}
+	}
+
+	/**
+	 * Builds the {@link #countryLocale} map
+	 * @return a new country to Locale map
+	 */
+	private static Map<String, Locale> buildCountryLocale()
+	{
+		Map<String, Locale> map = new TreeMap<>();
+		map.put("France", Locale.FRANCE);
+		map.put("Deutschland", Locale.GERMANY);
+		map.put("Italia", Locale.ITALY);
+		map.put("日本", Locale.CHINA);
+		map.put("대한민국", Locale.KOREA);
+		map.put("United Kingdom", Locale.UK);
+		map.put("United States", Locale.US);
+		map.put("Canada", Locale.CANADA);
+		return map;
+	}
+
 	/**
 	 * Get Locale from country name
 	 * @param countryName the name of the country to search
@@ -111,19 +485,6 @@ public abstract class Loader
 	 */
 	public static Locale getLocaleFromCountry(String countryName)
 	{
-		if (countryLocale == null) // build it first
-		{
-			countryLocale = new TreeMap<>();
-			countryLocale.put("France", Locale.FRANCE);
-			countryLocale.put("Deutschland", Locale.GERMANY);
-			countryLocale.put("Italia", Locale.ITALY);
-			countryLocale.put("日本", Locale.CHINA);
-			countryLocale.put("대한민국", Locale.KOREA);
-			countryLocale.put("United Kingdom", Locale.UK);
-			countryLocale.put("United States", Locale.US);
-			countryLocale.put("Canada", Locale.CANADA);
-		}
-
 		return countryLocale.get(countryName);
 	}
 
@@ -38,6 +38,20 @@ public class Note implements Comparable<Note>, Searchable<String>
 		this.content = content;
 	}
 
+	/**
+	 * Valued constructor with provided date (e.g. when a saved note is loaded)
+	 * @param content the content to set
+	 * @param date the creation date of this content
+	 */
+	public Note(String content, Date date)
+	{
+		this(content);
+		if (date == null){
+			throw new NullPointerException();
+		}
+		this.date = date;
+	}
+
 	/**
 	 * Note content's creation date
 	 * @return the content's creation date
@@ -0,0 +1,196 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Fork/Join task scanning an (immutable) array of {@link Contact}s to find
+ * contacts matching a {@link Predicate}.
+ * The array is split into chunks of at most {@link #threshold} contacts
+ * which are tested concurrently, and partial results are concatenated once
+ * in chunk order.
+ * @implNote Concatenating in chunk order costs nothing more than any other
+ * order and keeps results in array order, but callers such as
+ * {@link ContactManager} collect matches in an identity set and do not rely
+ * on it.
+ */
+public class ParallelScan extends RecursiveTask<List<Contact>>
+{
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Default maximum number of contacts scanned sequentially by a task
+	 */
+	public static final int DefaultThreshold = 4096;
+
+	/**
+	 * The contacts to scan (shared by all sub tasks and never modified)
+	 */
+	private final Contact[] contacts;
+
+	/**
+	 * Index of the first contact to scan (inclusive)
+	 */
+	private final int from;
+
+	/**
+	 * Index of the last contact to scan (exclusive)
+	 */
+	private final int to;
+
+	/**
+	 * Maximum number of contacts scanned sequentially
+	 */
+	private final int threshold;
+
+	/**
+	 * The predicate to test on contacts
+	 */
+	private final Predicate<Contact> predicate;
+
+	/**
+	 * The root task of this task (or this if this is the root task) checked
+	 * for cancellation
+	 */
+	private final ParallelScan root;
+
+	/**
+	 * Valued constructor of a root task scanning all provided contacts
+	 * @param contacts the contacts to scan
+	 * @param predicate the predicate to test on contacts
+	 * @param threshold the maximum number of contacts scanned sequentially
+	 */
+	public ParallelScan(Contact[] contacts,
+	                    Predicate<Contact> predicate,
+	                    int threshold)
+	{
+		this(contacts, 0, contacts.length, predicate, Math.max(1, threshold), null);
+	}
+
+	/**
+	 * Valued constructor of a sub task
+	 * @param contacts the contacts to scan
+	 * @param from index of the first contact to scan (inclusive)
+	 * @param to index of the last contact to scan (exclusive)
+	 * @param predicate the predicate to test on contacts
+	 * @param threshold the maximum number of contacts scanned sequentially
+	 * @param root the root task (or null if this is the root task)
+	 */
+	private ParallelScan(Contact[] contacts,
+	                     int from,
+	                     int to,
+	                     Predicate<Contact> predicate,
+	                     int threshold,
+	                     ParallelScan root)
+	{
+		this.contacts = contacts;
+		this.from = from;
+		this.to = to;
+		this.predicate = predicate;
+		this.threshold = threshold;
+		this.root = (root == null ? this : root);
+	}
+
+	/**
+	 * Scans contacts in provided pool and waits for the result
+	 * @param pool the pool to run the scan in
+	 * @param contacts the contacts to scan
+	 * @param predicate the predicate to test on contacts
+	 * @param threshold the maximum number of contacts scanned sequentially
+	 * @return the contacts matching predicate (in array order)
+	 * @throws CancellationException if the calling thread is interrupted
+	 * while waiting for the scan to complete
+	 */
+	public static List<Contact> scan(ForkJoinPool pool,
+	                                 Contact[] contacts,
+	                                 Predicate<Contact> predicate,
+	                                 int threshold)
+	    throws CancellationException
+	{
+		ParallelScan task = new ParallelScan(contacts, predicate, threshold);
+		pool.execute(task);
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			task.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new CancellationException("scan cancelled");
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Scans contacts between {@link #from} and {@link #to}, splitting
+	 * this range in sub tasks of {@link #threshold} contacts if it is larger
+	 * @return the contacts matching {@link #predicate} (in array order)
+	 * @throws CancellationException if root task has been cancelled
+	 * @implNote Sub tasks are all forked at once and their results copied
+	 * into a single list, so each match is copied only once instead of once
+	 * per level of a recursive split.
+	 */
+	@Override
+	protected List<Contact> compute() throws CancellationException
+	{
+		if (root.isCancelled())
+		{
+			throw new CancellationException();
+		}
+
+		if ((to - from) <= threshold)
+		{
+			List<Contact> matches = new ArrayList<>();
+			for (int i = from; i < to; i++)
+			{
+				if (predicate.test(contacts[i]))
+				{
+					matches.add(contacts[i]);
+				}
+			}
+			return matches;
+		}
+
+		List<ParallelScan> chunks = new ArrayList<>();
+		for (int start = from, end; start < to; start = end)
+		{
+			end = ((to - start) <= threshold) ? to : (start + threshold);
+			chunks.add(new ParallelScan(contacts,
+			                            start,
+			                            end,
+			                            predicate,
+			                            threshold,
+			                            root));
+		}
+		invokeAll(chunks);
+
+		int size = 0;
+		for (ParallelScan chunk : chunks)
+		{
+			size += chunk.join().size();
+		}
+		List<Contact> matches = new ArrayList<>(size);
+		for (ParallelScan chunk : chunks)
+		{
+			matches.addAll(chunk.join());
+		}
+		return matches;
+	}
+}
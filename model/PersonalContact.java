@@ -1,6 +1,7 @@
 package model;
 
 import java.net.URI;
+import java.util.Collection;
 
 /**
  * Personal contact: Represented by a person wirh a (last) name and a first name
@@ -44,6 +45,22 @@ public class PersonalContact extends Contact
 		this.corporation = corporation;
 	}
 
+	/**
+	 * Stub constructor
+	 * @param firstName First name of this contact
+	 * @param lastName Last name of this contact
+	 * @param resolver the resolver of this contact's details
+	 * @see Contact#Contact(String, Contact.Resolver)
+	 */
+	public PersonalContact(String firstName,
+	                       String lastName,
+	                       Contact.Resolver resolver)
+	{
+		super(lastName, resolver);
+		this.firstName = new String(firstName);
+		this.corporation = null;
+	}
+
 	/**
 	 * Copy constructor
 	 * @param contact The contact to copy
@@ -72,6 +89,7 @@ public class PersonalContact extends Contact
 	{
 		if (! (firstName == null) && ! (firstName.isEmpty())){
 			this.firstName = firstName;
+			modified();
 		}
 	}
 
@@ -94,6 +112,7 @@ public class PersonalContact extends Contact
 		if ((corporation == null) && this.corporation != null) {
 			this.corporation.remove(this) ; }
 		this.corporation = corporation ;
+		modified() ;
 		if (!(corporation == null)) {
 			this.corporation.add(this) ; } }
 
@@ -169,20 +188,15 @@ public class PersonalContact extends Contact
 	}
 
 	/**
-	 * Search for an element in {@link #name}, {@link #phoneNumbers} (in both
-	 * keys and values), {@link #addresses} (in both keys and values),
-	 * {@link #emails} (in both keys and values), {@link #links} (in both keys
-	 * and values) and {@link #notes} (in both keys and values) and finally in
-	 * {@link #firstName}. But NOT in {@link #corporation} since its a link to
-	 * another {@link Contact}.
-	 * @param element the element to search
-	 * @return true if the provided element could be found in this object,
-	 * false otherwise
+	 * All texts searched by {@link #contains(String)}, including
+	 * {@link #firstName}
+	 * @return a new collection of the texts searched in this contact
 	 */
 	@Override
-	public boolean contains(String element) {
-		boolean previousResult = super.contains(element) ;
-		if (!previousResult) {
-			if (firstName.contains(element)) {
-				previousResult = true ; } }
-		return previousResult ; } }
\ No newline at end of file
+	public Collection<String> searchableTexts()
+	{
+		Collection<String> texts = super.searchableTexts();
+		texts.add(firstName);
+		return texts;
+	}
+}
\ No newline at end of file
@@ -3,9 +3,15 @@ package model;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import utils.FlyweightFactory;
+
 /**
  * Class holding a phone number (limited to french numbers)
- * Implements {@link Comparable} so {@link PhoneNumber}s can be sorted
+ * Implements {@link Comparable} so {@link PhoneNumber}s can be sorted.
+ * Numbers obtained from {@link #valueOf(String)} are canonical: they are
+ * shared by all callers asking for the same number and can't be modified,
+ * whereas numbers obtained from {@link #parse(String)} are private and can be
+ * modified.
  * @see <a href="https://en.wikipedia.org/wiki/National_conventions_for_writing_telephone_numbers#France">National conventions for writing telephone number</a>
  */
 public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
@@ -17,11 +23,21 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	public final static String InternationalPrefix = "+33";
 
 	/**
-	 * Number prefix : Either "+33" or "0" for french numbers
+	 * National prefix
 	 */
-	private String prefix;
+	public final static String NationalPrefix = "0";
 
 	/**
+	 * Packed value of this number:
+	 * <ul>
+	 * <li>bit {@link #InternationalBit} is set for numbers with
+	 * {@link #InternationalPrefix} and clear for numbers with
+	 * {@link #NationalPrefix}</li>
+	 * <li>bit {@link #CanonicalBit} is set for canonical numbers</li>
+	 * <li>lower bits hold the 9 digits number composed of part A (region)
+	 * followed by part B (subscriber): part A * {@link #PartBRange} + part B.
+	 * </li>
+	 * </ul>
 	 * Part A: [1 digit] indicates number's region or nature:
 	 * <ul>
 	 * <li>[1-5] indicates regional number</li>
@@ -36,23 +52,68 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 * <li>[8-9] indicates commercial number</li>
 	 * <li>[9] indicates a digital subscriber number</li>
 	 * </ul>
+	 * Part B [8 digits] indicate subscriber unique number
+	 * @implNote A single primitive rather than a prefix string and two parts
+	 * so numbers are compact and compared, hashed and tested for equality
+	 * without dereferencing anything.
 	 */
-	private String partA;
+	private long value;
 
 	/**
-	 * Numerical value of {@link #partA} for comparison purposes
+	 * Number of digits in part B
 	 */
-	private int partAValue;
+	private static final int PartBLength = 8;
 
 	/**
-	 * Part B [8 digits] indicate subscriber unique number
+	 * Number of distinct part B values (10^{@link #PartBLength})
+	 */
+	private static final int PartBRange = 100000000;
+
+	/**
+	 * Bit of {@link #value} flagging international numbers
+	 */
+	private static final int InternationalBit = 32;
+
+	/**
+	 * Mask of the 9 digits number in {@link #value}
+	 */
+	private static final long NumberMask = (1L << InternationalBit) - 1;
+
+	/**
+	 * Bit of {@link #value} flagging canonical numbers, which are shared and
+	 * can't be modified. Not part of {@link #getPackedValue()}.
+	 */
+	private static final int CanonicalBit = 33;
+
+	/**
+	 * Flyweight factory holding canonical numbers, indexed by their packed
+	 * value
+	 * @implNote Numbers are weakly retained so numbers which are not used
+	 * anymore (e.g. from closed files or discarded edits) are reclaimed
+	 * instead of accumulating for the lifetime of the application.
+	 * @see #valueOf(String)
 	 */
-	private String partB;
+	private static final FlyweightFactory<PhoneNumber> canonicalNumbers =
+		new FlyweightFactory<PhoneNumber>(null,
+		                                  0,
+		                                  FlyweightFactory.Retention.WEAK);
 
 	/**
-	 * Numerical value of {@link #partB} for comparison purposes
+	 * Estimated size of a phone number: 12 bytes header, {@link #string}
+	 * reference and {@link #value}
 	 */
-	private int partBValue;
+	private static final long EstimatedBytes = 24;
+
+	static
+	{
+		canonicalNumbers.setWeigher((PhoneNumber number) -> EstimatedBytes);
+	}
+
+	/**
+	 * String representation of this number.
+	 * Lazily built by {@link #toString()} and replaced when this number changes
+	 */
+	private String string;
 
 	/**
 	 * Regular expression used to parse a phone number.
@@ -67,9 +128,8 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 * 	<li>a part A composed of 1 digit indicating region</li>
 	 * 	<li>a part B composed of 8 digits</li>
 	 * </ul>
-	 * Parsing a string containing a phone number consists in creating a
-	 * {@link Matcher} from {@link #pattern} and querying this matcher
-	 * to see if it matches and if so what are the matched groups.
+	 * Strings accepted by this pattern are exactly those accepted by
+	 * {@link #parse(String)}, which scans them without this pattern.
 	 */
 	private static final Pattern pattern = Pattern.compile("^(\\+33|0)\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*(\\d{1})\\s*$");
 
@@ -85,59 +145,178 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	}
 
 	/**
-	 * Parse phone number from string using regular expression
+	 * Parse phone number from string: a prefix ("+33" or "0") followed by 9
+	 * digits, possibly separated (and followed) by white spaces.
 	 * @param numberString the string to parse
-	 * @return a valid PhoneNumber parsed from string
+	 * @return a new PhoneNumber parsed from string
 	 * @throws IllegalArgumentException if number string couldn't be parsed
-	 * @see #PhoneNumber(String, String, String)
+	 * @throws NullPointerException if number string is null
+	 * @see #valueOf(String) to obtain a shared number
 	 */
-	public static PhoneNumber parse(String numberString) throws IllegalArgumentException {
-		Matcher matcher = matcher(numberString) ;
-		if (!matcher.matches()) {
+	public static PhoneNumber parse(String numberString) throws IllegalArgumentException
+	{
+		PhoneNumber result = new PhoneNumber(false, 0, 0);
+		result.value = scan(numberString);
+		return result;
+	}
+
+	/**
+	 * Canonical phone number parsed from string: a prefix ("+33" or "0")
+	 * followed by 9 digits, possibly separated (and followed) by white
+	 * spaces.
+	 * Should be preferred to {@link #parse(String)} when many numbers are
+	 * parsed and not modified afterwards (e.g. by loaders).
+	 * @param numberString the string to parse
+	 * @return the canonical PhoneNumber parsed from string, which is the same
+	 * instance for all strings denoting the same number with the same prefix
+	 * and can't be modified
+	 * @throws IllegalArgumentException if number string couldn't be parsed
+	 * @throws NullPointerException if number string is null
+	 * @implNote The packed value is looked up in {@link #canonicalNumbers}, so
+	 * parsing an already known number allocates nothing but its key.
+	 */
+	public static PhoneNumber valueOf(String numberString) throws IllegalArgumentException
+	{
+		return canonicalNumbers.get(Long.valueOf(scan(numberString)),
+		                            PhoneNumber::canonical);
+	}
+
+	/**
+	 * Scans a phone number string
+	 * @param numberString the string to scan
+	 * @return the packed value of the number
+	 * @throws IllegalArgumentException if number string couldn't be parsed
+	 * @throws NullPointerException if number string is null
+	 * @implNote numberString is scanned once and digits are accumulated
+	 * directly into part A and part B values. Accepts the same strings as
+	 * {@link #pattern}.
+	 */
+	private static long scan(String numberString) throws IllegalArgumentException {
+		int length = numberString.length() ;
+		boolean international ;
+		int i ;
+		if (numberString.startsWith(InternationalPrefix)) {
+			international = true ;
+			i = InternationalPrefix.length() ; }
+		else if (numberString.startsWith(NationalPrefix)) {
+			international = false ;
+			i = NationalPrefix.length() ; }
+		else {
+			throw new IllegalArgumentException(numberString + " is not a valid phone number") ; }
+		int digits = 0 ;
+		int partA = 0 ;
+		int partB = 0 ;
+		for (; i < length; i++) {
+			char c = numberString.charAt(i) ;
+			if ((c >= '0') && (c <= '9')) {
+				if (digits == 0) {
+					partA = c - '0' ; }
+				else if (digits <= PartBLength) {
+					partB = (partB * 10) + (c - '0') ; }
+				else {
+					throw new IllegalArgumentException(numberString + " is not a valid phone number") ; }
+				digits++ ; }
+			else if (!isSpace(c)) {
+				throw new IllegalArgumentException(numberString + " is not a valid phone number") ; } }
+		if (digits != (PartBLength + 1)) {
 			throw new IllegalArgumentException(numberString + " is not a valid phone number") ; }
-		String prefix = matcher.group(1) ;
-		String part1 = matcher.group(2) ;
-		int part1Number = 1 ;
-		if ((part1.length() != 1) || (part1Number < 1)) {
-			throw new IllegalArgumentException("Illegal part A : " + part1) ; }
-		StringBuilder sb = new StringBuilder() ;
-		for (int i = 3; i <= 10; i++) {
-			sb.append(matcher.group(i)) ; }
-		String part2 = sb.toString() ;
-		if (part2.length() != 8) {
-			throw new IllegalArgumentException("Illegal part B : " + part2) ; }
-		return new PhoneNumber(prefix, part1, part2) ; }
+		return pack(international, partA, partB) ; }
+
+	/**
+	 * Creates the canonical number for a packed value
+	 * @param packedValue the packed value of the number
+	 * @return a new canonical number with this packed value
+	 * @see #canonicalNumbers
+	 */
+	private static PhoneNumber canonical(Long packedValue)
+	{
+		PhoneNumber result = new PhoneNumber(false, 0, 0);
+		result.value = packedValue.longValue() | (1L << CanonicalBit);
+		return result;
+	}
+
+	/**
+	 * Flyweight factory holding canonical numbers, which provides the hits
+	 * and misses statistics of {@link #valueOf(String)}
+	 * @return the factory holding canonical numbers
+	 */
+	public static FlyweightFactory<PhoneNumber> getFlyweightFactory()
+	{
+		return canonicalNumbers;
+	}
+
+	/**
+	 * Check if a character is a white space as defined by "\\s" in
+	 * {@link #pattern}
+	 * @param c the character to check
+	 * @return true if c is a space, a tab, a line feed, a vertical tab, a form
+	 * feed or a carriage return
+	 */
+	private static boolean isSpace(char c)
+	{
+		return (c == ' ') || ((c >= '\t') && (c <= '\r'));
+	}
 
 	/**
 	 * Private valued constructor to build phone number's parts without control.
-	 * This constructor is used by {@link #parse(String)} only.
-	 * @param prefix Phone Prefix (either 0 or "+33 ")
-	 * @param partA regional part ([1..9]{1})
-	 * @param partB subscriber number ([0..9]{8}) (unformatted)
-	 * @throws NumberFormatException if partA or partB can't be parsed as ints
-	 * @see #parse(String) use this constructor
-	 */
-	private PhoneNumber(String prefix, String partA, String partB)
+	 * This constructor is used by {@link #canonical(Long)} and
+	 * {@link #unpack(long)} only.
+	 * @param international true for {@link #InternationalPrefix}, false for
+	 * {@link #NationalPrefix}
+	 * @param partA regional part ([0..9])
+	 * @param partB subscriber number ([0..99999999])
+	 * @see #parse(String) uses this constructor
+	 */
+	private PhoneNumber(boolean international, int partA, int partB)
+	{
+		value = pack(international, partA, partB);
+	}
+
+	/**
+	 * Packs the parts of a phone number into a single value
+	 * @param international true for {@link #InternationalPrefix}, false for
+	 * {@link #NationalPrefix}
+	 * @param partA regional part ([0..9])
+	 * @param partB subscriber number ([0..99999999])
+	 * @return the packed value of this phone number
+	 * @see #getPackedValue()
+	 */
+	private static long pack(boolean international, int partA, int partB)
 	{
-		this.prefix = prefix;
-		this.partA = partA;
-		partAValue = Integer.parseInt(partA);
-		this.partB = partB;
-		partBValue = Integer.parseInt(partB);
+		return (international ? (1L << InternationalBit) : 0L)
+		    | (((long) partA * PartBRange) + partB);
+	}
 
+	/**
+	 * Phone number from its packed value
+	 * @param packedValue the packed value of a phone number as provided by
+	 * {@link #getPackedValue()}
+	 * @return a new (not canonical) phone number with this packed value
+	 * @throws IllegalArgumentException if packedValue is not a valid packed
+	 * phone number
+	 */
+	public static PhoneNumber unpack(long packedValue) throws IllegalArgumentException
+	{
+		long number = packedValue & NumberMask;
+		if (((packedValue & ~NumberMask) & ~(1L << InternationalBit)) != 0
+		    || (number >= (10L * PartBRange)))
+		{
+			throw new IllegalArgumentException(packedValue + " is not a valid packed phone number");
+		}
+		PhoneNumber result = new PhoneNumber(false, 0, 0);
+		result.value = packedValue;
+		return result;
 	}
 
 	/**
 	 * Copy constructor
 	 * @param n the number to copy
+	 * @implNote copies are never canonical and can therefore be modified
 	 */
 	public PhoneNumber(PhoneNumber n)
 	{
-		prefix = n.prefix;
-		partA = n.partA;
-		partAValue = n.partAValue;
-		partB = n.partB;
-		partBValue = n.partBValue;
+		value = n.value & ~(1L << CanonicalBit);
+		string = n.string;
 	}
 
 	/**
@@ -156,15 +335,16 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 * @param numberString the string to parse
 	 * @return true if provided string could be parsed to obtain new values,
 	 * false otherwise
+	 * @throws UnsupportedOperationException if this number is canonical (as
+	 * obtained from {@link #valueOf(String)})
 	 * @see PhoneNumber#parse(String)
 	 */
 	public boolean parseFrom(String numberString) {
+		if ((value & (1L << CanonicalBit)) != 0) {
+			throw new UnsupportedOperationException(this + " is shared and can't be modified") ; }
 		PhoneNumber pn = parse(numberString) ;
-        this.prefix = pn.prefix ;
-        this.partA = pn.partA ;
-        this.partAValue = pn.partAValue ;
-        this.partB = pn.partB ;
-        this.partBValue = pn.partBValue ;
+        this.value = pn.value ;
+        this.string = pn.string ;
         return true ; }
 
 	/**
@@ -173,7 +353,7 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 */
 	public boolean isInternational()
 	{
-		return prefix.equals(InternationalPrefix);
+		return (value & (1L << InternationalBit)) != 0;
 	}
 
 	/**
@@ -209,7 +389,7 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 */
 	public boolean isDigital()
 	{
-		return partAValue == 9;
+		return getRegion() == 9;
 	}
 
 	/**
@@ -218,7 +398,7 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 */
 	public int getRegion()
 	{
-		return partAValue;
+		return (int) ((value & NumberMask) / PartBRange);
 	}
 
 	/**
@@ -227,41 +407,50 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 */
 	public int getSubscriber()
 	{
-		return partBValue;
+		return (int) ((value & NumberMask) % PartBRange);
+	}
+
+	/**
+	 * Get packed value of this number, which identifies this number along
+	 * with its prefix
+	 * @return the packed value of this number
+	 * @see #unpack(long)
+	 */
+	public long getPackedValue()
+	{
+		return value & ~(1L << CanonicalBit);
 	}
 
 	/**
 	 * Compare with other phone number
 	 * @param other the other number to compare with
-	 * @implSpec Uses {@link #partAValue} and {@link #partBValue}
+	 * @implSpec Uses the 9 digits number of {@link #value} (part A then
+	 * part B)
 	 * @return negative value if this number is considered less thand other, 0 if
 	 * both numbers are equals and positive value if other is considered bigger
-	 * than this. {@link #prefix} is ignored.
+	 * than this. Prefix is ignored.
 	 */
 	@Override
 	public int compareTo(PhoneNumber other) {
-		int result = Integer.compare(this.partAValue, other.partAValue) ;
-		if (result != 0) {
-			return result ; }
-		return Integer.compare(this.partBValue, other.partBValue) ; }
+		return Long.compare(value & NumberMask, other.value & NumberMask) ; }
 
 	/**
-	 * Computes the hash code for this number based on {@link #partAValue} and
-	 * {@link #partBValue}
+	 * Computes the hash code for this number based on part A and part B
+	 * values
 	 * @return the hash code for this number
 	 */
 	@Override
 	public int hashCode() {
 		final int prime = 31 ;
 		int hash = 1 ;
-		hash = (prime * hash) + ((partA == null) ? 0 : partAValue) ;
-		hash = (prime * hash) + ((partB == null) ? 0 : partBValue) ;
+		hash = (prime * hash) + getRegion() ;
+		hash = (prime * hash) + getSubscriber() ;
 		return hash ; }
 
 	/**
 	 * @param obj the other object compare
-	 * @return true if obj is a {@link PhoneNumber} with the same {@link #partA}
-	 * and {@link #partB}. {@link #prefix} is ignored
+	 * @return true if obj is a {@link PhoneNumber} with the same part A and
+	 * part B. Prefix is ignored
 	 */
 	@Override
 	public boolean equals(Object obj) {
@@ -280,33 +469,41 @@ public class PhoneNumber implements Comparable<PhoneNumber>, Searchable<String>
 	 * and space between <prefix> and <partA> is applied only on international
 	 * numbers
 	 * @return a String representation of this phone number
+	 * @implNote Built from {@link #value} on first call and then cached in
+	 * {@link #string}, which does not increase the size of phone numbers
+	 * since object sizes are aligned on 8 bytes anyway.
 	 */
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder() ;
-		sb.append(prefix) ;
+		if (!(string == null)) {
+			return string ; }
+		StringBuilder sb = new StringBuilder(17) ;
 		if (isInternational()) {
-			sb.append(" ") ; }
-		sb.append(partA).append(" ") ;
-		for (int i = 0; i < partB.length(); i += 2) {
-			sb.append(partB, i, i + 2).append(" ") ; }
-		return sb.toString().trim() ; }
+			sb.append(InternationalPrefix).append(' ') ; }
+		else {
+			sb.append(NationalPrefix) ; }
+		sb.append((char) ('0' + getRegion())) ;
+		int partB = getSubscriber() ;
+		for (int divisor = PartBRange / 100; divisor > 0; divisor /= 100) {
+			int pair = (partB / divisor) % 100 ;
+			sb.append(' ').append((char) ('0' + (pair / 10))).append((char) ('0' + (pair % 10))) ; }
+		string = sb.toString() ;
+		return string ; }
 
 	/**
 	 * Utility method indicating if partA is within [min..max] range
 	 * @param min the min part of the range
 	 * @param max the max part of the range
-	 * @return true if {@link #partA} is within this range, false otherwise
+	 * @return true if part A is within this range, false otherwise
 	 */
 	private boolean partAIsWithin(int min, int max)
 	{
-		int partAValue = Integer.parseInt(partA);
-		return (partAValue >= min) && (partAValue <= max);
+		int partA = getRegion();
+		return (partA >= min) && (partA <= max);
 	}
 
 	/**
-	 * Search for an element in either {@link #prefix}, {@link #partA},
-	 * {@link #partB} or {@link #toString()}
+	 * Search for an element in {@link #toString()}
 	 * @param element the element to search
 	 * @return true if the provided element could be found in this object,
 	 * false otherwise
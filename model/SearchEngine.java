@@ -0,0 +1,105 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Search engine over a set of {@link Contact}s providing candidate contacts
+ * for a search string without testing every contact.
+ * Engines are maintained by adding, removing or updating contacts and
+ * provide a superset of the contacts containing a search string (in the sense
+ * of {@link Contact#contains(String)}), which then only needs to be verified.
+ * Word based engines such as {@link TokenIndex} are the exception: they
+ * only provide the contacts whose words match the search string, which is
+ * a subset of the contacts containing it.
+ * @see ContactManager#setPredicate(Contact.Type, String)
+ */
+public interface SearchEngine
+{
+	/**
+	 * Adds a contact to this engine
+	 * @param contact the contact to add
+	 * @return true if the contact was not already indexed and has been added
+	 */
+	public abstract boolean add(Contact contact);
+
+	/**
+	 * Removes a contact from this engine
+	 * @param contact the contact to remove
+	 * @return true if the contact was indexed and has been removed
+	 */
+	public abstract boolean remove(Contact contact);
+
+	/**
+	 * Updates a contact after it has been modified
+	 * @param contact the modified contact
+	 */
+	public default void update(Contact contact)
+	{
+		remove(contact);
+		add(contact);
+	}
+
+	/**
+	 * Removes all contacts from this engine
+	 */
+	public abstract void clear();
+
+	/**
+	 * Search for contacts which may contain the provided element.
+	 * @param element the element to search
+	 * @return a set of candidate contacts containing at least all indexed
+	 * contacts containing this element, or null if any contact might contain
+	 * this element.
+	 */
+	public abstract Set<Contact> search(String element);
+
+	/**
+	 * Check if a search refines a previous one, in which case all the contacts
+	 * matching search also match previous
+	 * @param previous the previous (folded) search
+	 * @param search the new (folded) search
+	 * @return true if search contains previous
+	 */
+	public default boolean refines(String previous, String search)
+	{
+		return search.contains(previous);
+	}
+
+	/**
+	 * Adds corporations of candidate {@link PersonalContact}s to candidates
+	 * since a {@link CorporateContact} also contains its employees contents.
+	 * @param candidates the candidates to complete
+	 */
+	public static void addCorporations(Set<Contact> candidates)
+	{
+		List<CorporateContact> corporations = new ArrayList<>();
+		for (Contact contact : candidates)
+		{
+			if (contact instanceof PersonalContact)
+			{
+				CorporateContact corporation =
+				    ((PersonalContact) contact).getCorporation();
+				if (corporation != null)
+				{
+					corporations.add(corporation);
+				}
+			}
+		}
+		candidates.addAll(corporations);
+	}
+
+	/**
+	 * Creates a new empty set of contacts compared by identity, since
+	 * {@link Contact#equals(Object)} and {@link Contact#hashCode()} only depend
+	 * on (mutable) names.
+	 * @return a new empty identity set of contacts
+	 */
+	public static Set<Contact> identitySet()
+	{
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
@@ -0,0 +1,181 @@
+package model;
+
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.application.Platform;
+
+/**
+ * Service evaluating {@link ContactManager} searches on a background thread.
+ * <ul>
+ * <li>Searches are debounced: a search is only started after
+ * {@link #delay} without newer search request.</li>
+ * <li>A newer search request cancels any pending or running search.</li>
+ * <li>The result of a search is published to the {@link ContactManager} in a
+ * single task run by {@link #publisher} (typically
+ * {@link Platform#runLater(Runnable)}).</li>
+ * </ul>
+ * @see ContactManager#filter(Contact.Type, String)
+ */
+public class SearchService
+{
+	/**
+	 * Default debouncing delay (in ms)
+	 */
+	public static final long DefaultDelay = 150;
+
+	/**
+	 * The manager whose contacts are searched
+	 */
+	private final ContactManager manager;
+
+	/**
+	 * Debouncing delay (in ms) before starting a search
+	 */
+	private final long delay;
+
+	/**
+	 * Executor used to publish search results
+	 */
+	private final Executor publisher;
+
+	/**
+	 * Executor evaluating searches in background
+	 */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Number of the last search request so stale results can be discarded
+	 */
+	private final AtomicLong generation;
+
+	/**
+	 * Pending or running search (or null)
+	 */
+	private Future<?> current;
+
+	/**
+	 * Valued constructor
+	 * @param manager the manager whose contacts are searched
+	 * @param delay debouncing delay (in ms) before starting a search
+	 * @param publisher the executor used to publish search results to the
+	 * manager
+	 * @throws NullPointerException if manager or publisher are null
+	 */
+	public SearchService(ContactManager manager, long delay, Executor publisher)
+	{
+		this.manager = Objects.requireNonNull(manager);
+		this.delay = delay;
+		this.publisher = Objects.requireNonNull(publisher);
+		executor = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+			Thread thread = new Thread(r, getClass().getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		generation = new AtomicLong();
+		current = null;
+	}
+
+	/**
+	 * Constructor with default delay, publishing results on the JavaFX
+	 * Application thread
+	 * @param manager the manager whose contacts are searched
+	 */
+	public SearchService(ContactManager manager)
+	{
+		this(manager, DefaultDelay, Platform::runLater);
+	}
+
+	/**
+	 * Request a new search, cancelling any pending or running search
+	 * @param type the type of contacts to filter
+	 * @param search the search string to search in contacts
+	 */
+	public synchronized void submit(Contact.Type type, String search)
+	{
+		long id = generation.incrementAndGet();
+		if (current != null)
+		{
+			current.cancel(true);
+		}
+		current = executor.schedule(() -> run(id, type, search),
+		                            delay,
+		                            TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels any pending or running search
+	 */
+	public synchronized void cancel()
+	{
+		generation.incrementAndGet();
+		if (current != null)
+		{
+			current.cancel(true);
+			current = null;
+		}
+	}
+
+	/**
+	 * Cancels any pending or running search and stops background thread
+	 */
+	public void shutdown()
+	{
+		cancel();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Evaluates a search and publishes its result unless a newer search has
+	 * been requested in between
+	 * @param id the number of this search request
+	 * @param type the type of contacts to filter
+	 * @param search the search string to search in contacts
+	 */
+	private void run(long id, Contact.Type type, String search)
+	{
+		ContactManager.SearchResult result = null;
+		while (result == null)
+		{
+			if (id != generation.get())
+			{
+				return;
+			}
+			try
+			{
+				result = manager.evaluate(type, search);
+			}
+			catch (CancellationException e)
+			{
+				return;
+			}
+			catch (ConcurrentModificationException e)
+			{
+				/*
+				 * A contact has been modified during search: search again
+				 */
+			}
+			catch (RuntimeException e)
+			{
+				System.err.println("Error searching \"" + search + "\": "
+				    + e.getLocalizedMessage());
+				return;
+			}
+		}
+
+		ContactManager.SearchResult searchResult = result;
+		publisher.execute(() -> {
+			if (id == generation.get())
+			{
+				manager.apply(searchResult);
+			}
+		});
+	}
+}
@@ -0,0 +1,233 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index of {@link Contact}s: each token found in the
+ * {@link Contact#searchableTexts()} of a contact is mapped to the set of
+ * contacts containing this token.
+ * Tokens are maximal runs of letters or digits of {@link Contact#fold(String)
+ * folded} texts. Searching this index is a word search: the tokens of a
+ * search string must be tokens of a contact, except the last one which only
+ * needs to start a token of the contact (e.g. "rue du Mou" finds a contact
+ * living "rue du Moulin"). Each search is therefore a few lookups in
+ * {@link #postings} rather than a scan of all tokens, and candidates only
+ * need to be verified with {@link Contact#contains(String)}.
+ * Since candidates are verified with {@link Contact#contains(String)}, a
+ * search string spanning several texts of a contact is never found (e.g.
+ * "Sophie Du" does not find "Sophie Durand" whose first and last names are
+ * distinct texts).
+ * This index only matches token prefixes, so it provides a subset of the
+ * contacts matched by {@link Contact#contains(String)} and is not a drop-in
+ * replacement for other {@link SearchEngine}s: it does not find a search
+ * string in the middle of a word (e.g. "rand" does not find "Durand"), which
+ * is left to {@link TrigramIndex}.
+ * @implNote Contacts are stored by identity since {@link Contact#equals(Object)}
+ * and {@link Contact#hashCode()} only depend on (mutable) names.
+ */
+public class TokenIndex implements SearchEngine
+{
+	/**
+	 * Postings: contacts containing each token
+	 */
+	private NavigableMap<String, Set<Contact>> postings;
+
+	/**
+	 * Tokens of each indexed contact, so a contact can be removed from
+	 * {@link #postings} even after it has been modified.
+	 */
+	private Map<Contact, Set<String>> contactTokens;
+
+	/**
+	 * Default constructor.
+	 * Creates an empty index
+	 */
+	public TokenIndex()
+	{
+		postings = new TreeMap<>();
+		contactTokens = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Number of indexed contacts
+	 * @return the number of indexed contacts
+	 */
+	public int size()
+	{
+		return contactTokens.size();
+	}
+
+	@Override
+	public boolean add(Contact contact)
+	{
+		if (contactTokens.containsKey(contact))
+		{
+			return false;
+		}
+
+		Set<String> tokens = new HashSet<>();
+		for (String text : contact.searchableTexts())
+		{
+			tokens.addAll(tokenize(Contact.fold(text)));
+		}
+		for (String token : tokens)
+		{
+			postings.computeIfAbsent(token, (String t) -> SearchEngine.identitySet()).add(contact);
+		}
+		contactTokens.put(contact, tokens);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Contact contact)
+	{
+		Set<String> tokens = contactTokens.remove(contact);
+		if (tokens == null)
+		{
+			return false;
+		}
+
+		for (String token : tokens)
+		{
+			Set<Contact> posting = postings.get(token);
+			posting.remove(contact);
+			if (posting.isEmpty())
+			{
+				postings.remove(token);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		postings.clear();
+		contactTokens.clear();
+	}
+
+	/**
+	 * Search for contacts whose words match the provided element.
+	 * @param element the element to search
+	 * @return a set of candidate contacts containing at least all indexed
+	 * contacts whose tokens match the tokens of this element, or null if
+	 * element contains no token, in which case any contact might contain it.
+	 * @implNote Tokens of element are looked up in {@link #postings}: the last
+	 * one as a prefix (through a range of {@link #postings}) unless element
+	 * ends with a separator, and the other ones exactly. Since a
+	 * {@link CorporateContact} contains its employees contents, corporations
+	 * of candidate {@link PersonalContact}s are also candidates.
+	 */
+	@Override
+	public Set<Contact> search(String element)
+	{
+		if (element == null)
+		{
+			return SearchEngine.identitySet();
+		}
+
+		String folded = Contact.fold(element);
+		List<String> queryTokens = tokenize(folded);
+		if (queryTokens.isEmpty())
+		{
+			return null;
+		}
+		boolean lastIsPrefix =
+		    Character.isLetterOrDigit(folded.charAt(folded.length() - 1));
+
+		Set<Contact> candidates = null;
+		for (int i = 0; i < queryTokens.size(); i++)
+		{
+			String queryToken = queryTokens.get(i);
+			Set<Contact> matches = SearchEngine.identitySet();
+			if (lastIsPrefix && (i == (queryTokens.size() - 1)))
+			{
+				for (Set<Contact> posting : postings.subMap(queryToken,
+				                                            true,
+				                                            queryToken + Character.MAX_VALUE,
+				                                            false).values())
+				{
+					matches.addAll(posting);
+				}
+			}
+			else
+			{
+				Set<Contact> posting = postings.get(queryToken);
+				if (posting != null)
+				{
+					matches.addAll(posting);
+				}
+			}
+
+			if (candidates == null)
+			{
+				candidates = matches;
+			}
+			else
+			{
+				candidates.retainAll(matches);
+			}
+
+			if (candidates.isEmpty())
+			{
+				return candidates;
+			}
+		}
+
+		SearchEngine.addCorporations(candidates);
+		return candidates;
+	}
+
+	/**
+	 * Check if a search refines a previous one for this index: since tokens
+	 * are matched as words, a search only refines a previous search it
+	 * starts with (e.g. "rue du" refines "rue" but "bran" does not refine
+	 * "ran").
+	 * @param previous the previous (folded) search
+	 * @param search the new (folded) search
+	 * @return true if search starts with previous
+	 */
+	@Override
+	public boolean refines(String previous, String search)
+	{
+		return search.startsWith(previous);
+	}
+
+	/**
+	 * Splits a text into tokens: maximal runs of letters or digits
+	 * @param text the text to split
+	 * @return the list of tokens of this text
+	 */
+	public static List<String> tokenize(String text)
+	{
+		List<String> tokens = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i < text.length(); i++)
+		{
+			if (Character.isLetterOrDigit(text.charAt(i)))
+			{
+				if (start < 0)
+				{
+					start = i;
+				}
+			}
+			else if (start >= 0)
+			{
+				tokens.add(text.substring(start, i));
+				start = -1;
+			}
+		}
+		if (start >= 0)
+		{
+			tokens.add(text.substring(start));
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,199 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * N-gram (trigram) index of {@link Contact}s supporting substring search with
+ * the same semantics as {@link Contact#contains(String)} (e.g. "rand" should
+ * find "Durand").
+ * Each of the {@link Contact#searchableTexts()} of a contact is
+ * {@link Contact#fold(String) folded} and split into
+ * all its 3 characters long substrings (texts shorter than 3 characters are
+ * used as is) and each of these grams is mapped to the contacts containing it.
+ * <ul>
+ * <li>A search string of at least 3 characters can only be found in contacts
+ * containing all of its trigrams: postings of these trigrams are
+ * intersected (starting with the smallest one).</li>
+ * <li>A shorter search string can only be found in contacts with a gram
+ * containing it: postings of these grams are merged.</li>
+ * </ul>
+ * Resulting candidates still need to be verified with
+ * {@link Contact#contains(String)} since trigrams may come from different
+ * texts or positions.
+ */
+public class TrigramIndex implements SearchEngine
+{
+	/**
+	 * Length of grams in this index
+	 */
+	public static final int GramLength = 3;
+
+	/**
+	 * Postings: contacts containing each gram
+	 */
+	private Map<String, Set<Contact>> postings;
+
+	/**
+	 * Grams of each indexed contact, so a contact can be removed from
+	 * {@link #postings} even after it has been modified.
+	 */
+	private Map<Contact, Set<String>> contactGrams;
+
+	/**
+	 * Default constructor.
+	 * Creates an empty index
+	 */
+	public TrigramIndex()
+	{
+		postings = new HashMap<>();
+		contactGrams = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Number of indexed contacts
+	 * @return the number of indexed contacts
+	 */
+	public int size()
+	{
+		return contactGrams.size();
+	}
+
+	@Override
+	public boolean add(Contact contact)
+	{
+		if (contactGrams.containsKey(contact))
+		{
+			return false;
+		}
+
+		Set<String> grams = new HashSet<>();
+		for (String text : contact.searchableTexts())
+		{
+			addGrams(grams, Contact.fold(text));
+		}
+		for (String gram : grams)
+		{
+			postings.computeIfAbsent(gram, (String g) -> SearchEngine.identitySet()).add(contact);
+		}
+		contactGrams.put(contact, grams);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Contact contact)
+	{
+		Set<String> grams = contactGrams.remove(contact);
+		if (grams == null)
+		{
+			return false;
+		}
+
+		for (String gram : grams)
+		{
+			Set<Contact> posting = postings.get(gram);
+			posting.remove(contact);
+			if (posting.isEmpty())
+			{
+				postings.remove(gram);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		postings.clear();
+		contactGrams.clear();
+	}
+
+	/**
+	 * Search for contacts which may contain the provided element.
+	 * @param element the element to search
+	 * @return a set of candidate contacts containing at least all indexed
+	 * contacts containing this element, or null if element is empty, in which
+	 * case any contact contains it.
+	 * @implNote Since a {@link CorporateContact} contains its employees
+	 * contents, corporations of candidate {@link PersonalContact}s are also
+	 * candidates.
+	 */
+	@Override
+	public Set<Contact> search(String element)
+	{
+		if (element == null)
+		{
+			return SearchEngine.identitySet();
+		}
+
+		element = Contact.fold(element);
+		if (element.isEmpty())
+		{
+			return null;
+		}
+
+		Set<Contact> candidates = SearchEngine.identitySet();
+		if (element.length() < GramLength)
+		{
+			for (Map.Entry<String, Set<Contact>> entry : postings.entrySet())
+			{
+				if (entry.getKey().contains(element))
+				{
+					candidates.addAll(entry.getValue());
+				}
+			}
+		}
+		else
+		{
+			Set<String> grams = new HashSet<>();
+			addGrams(grams, element);
+			List<Set<Contact>> gramPostings = new ArrayList<>(grams.size());
+			for (String gram : grams)
+			{
+				Set<Contact> posting = postings.get(gram);
+				if (posting == null)
+				{
+					return candidates;
+				}
+				gramPostings.add(posting);
+			}
+			gramPostings.sort(Comparator.comparingInt(Set::size));
+			candidates.addAll(gramPostings.get(0));
+			for (int i = 1; (i < gramPostings.size()) && !candidates.isEmpty(); i++)
+			{
+				candidates.retainAll(gramPostings.get(i));
+			}
+		}
+
+		SearchEngine.addCorporations(candidates);
+		return candidates;
+	}
+
+	/**
+	 * Adds all grams of a text to a set of grams
+	 * @param grams the set of grams to complete
+	 * @param text the text to split into grams
+	 */
+	private static void addGrams(Set<String> grams, String text)
+	{
+		if (text.length() < GramLength)
+		{
+			if (!text.isEmpty())
+			{
+				grams.add(text);
+			}
+			return;
+		}
+
+		for (int i = 0; i <= (text.length() - GramLength); i++)
+		{
+			grams.add(text.substring(i, i + GramLength));
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import model.BinaryLoader;
+import model.Contact;
+import model.ContactManager;
+import model.CorporateContact;
+import model.JSONLoader;
+import model.Loader;
+import model.PersonalContact;
+
+/**
+ * Test class for {@link BinaryLoader}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("BinaryLoader")
+class BinaryLoaderTest
+{
+	/**
+	 * Example file provided with the application
+	 */
+	private static final File exampleFile = new File("data/example.json");
+
+	/**
+	 * Temporary binary file used by tests
+	 */
+	private File testFile;
+
+	/**
+	 * Temporary JSON file used by tests
+	 */
+	private File jsonFile;
+
+	/**
+	 * Index contacts by name
+	 * @param contacts the contacts to index
+	 * @return a map of contacts by name (as provided by toString)
+	 */
+	private static Map<String, Contact> byName(Set<Contact> contacts)
+	{
+		Map<String, Contact> result = new HashMap<>();
+		for (Contact contact : contacts)
+		{
+			result.put(contact.toString(), contact);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks two sets of contacts have the same contacts with the same
+	 * contents
+	 * @param expected the expected contacts
+	 * @param actual the actual contacts
+	 * @param testName the name of the test
+	 */
+	private static void assertSameContacts(Set<Contact> expected,
+	                                       Set<Contact> actual,
+	                                       String testName)
+	{
+		assertEquals(expected.size(), actual.size(), testName + " unexpected size");
+		Map<String, Contact> actualByName = byName(actual);
+		for (Contact contact : expected)
+		{
+			Contact other = actualByName.get(contact.toString());
+			assertNotNull(other, testName + " missing contact " + contact);
+			assertEquals(contact.getPhoneNumberKeySet(), other.getPhoneNumberKeySet(),
+			             testName + " unexpected phones of " + contact);
+			assertEquals(contact.getEmailKeySet(), other.getEmailKeySet(),
+			             testName + " unexpected emails of " + contact);
+			assertEquals(contact.getLinksKeySet(), other.getLinksKeySet(),
+			             testName + " unexpected links of " + contact);
+			for (String key : contact.getAddressKeySet())
+			{
+				assertEquals(contact.getAddress(key), other.getAddress(key),
+				             testName + " unexpected address " + key + " of " + contact);
+			}
+			for (String key : contact.getNotesKeySet())
+			{
+				assertEquals(contact.getNote(key).getContent(), other.getNote(key).getContent(),
+				             testName + " unexpected note " + key + " of " + contact);
+			}
+			if (contact instanceof PersonalContact)
+			{
+				CorporateContact corporation = ((PersonalContact) contact).getCorporation();
+				CorporateContact otherCorporation = ((PersonalContact) other).getCorporation();
+				assertEquals(String.valueOf(corporation), String.valueOf(otherCorporation),
+				             testName + " unexpected corporation of " + contact);
+			}
+			else
+			{
+				assertEquals(((CorporateContact) contact).getEmployees().size(),
+				             ((CorporateContact) other).getEmployees().size(),
+				             testName + " unexpected employees of " + contact);
+			}
+		}
+	}
+
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("BinaryLoader tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("BinaryLoader tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Setup before each test
+	 * @throws Exception if setup fails
+	 */
+	@BeforeEach
+	void setUp() throws Exception
+	{
+		testFile = File.createTempFile("contacts", ".bin");
+		jsonFile = File.createTempFile("contacts", ".json");
+	}
+
+	/**
+	 * Teardown after each test
+	 * @throws Exception if teardown fails
+	 */
+	@AfterEach
+	void tearDown() throws Exception
+	{
+		testFile.delete();
+		testFile = null;
+		jsonFile.delete();
+		jsonFile = null;
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#save(Set)} and
+	 * {@link BinaryLoader#load()}
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) & load()")
+	@Order(1)
+	final void testSaveLoad()
+	{
+		String testName = new String("save(Set<Contact>) & load()");
+		System.out.println(testName);
+
+		try
+		{
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			BinaryLoader loader = new BinaryLoader(testFile);
+			loader.save(contacts);
+			assertNotNull(loader.getDate(), testName + " missing date");
+
+			loader = new BinaryLoader(testFile);
+			Set<Contact> reloaded = loader.load();
+			assertNotNull(loader.getDate(), testName + " missing loaded date");
+			assertSameContacts(contacts, reloaded, testName);
+
+			Map<String, Contact> reloadedByName = byName(reloaded);
+			Contact imt = reloadedByName.get("IMT-BS");
+			Contact paul = reloadedByName.get("Paul Dupont");
+			assertSame(imt, ((PersonalContact) paul).getCorporation(),
+			           testName + " unexpected corporation");
+			assertTrue(((CorporateContact) imt).contains((PersonalContact) paul),
+			           testName + " missing employee");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#fromJSON(File, File)} and
+	 * {@link BinaryLoader#toJSON(File, File)}
+	 */
+	@Test
+	@DisplayName("fromJSON(File, File) & toJSON(File, File)")
+	@Order(2)
+	final void testConversion()
+	{
+		String testName = new String("fromJSON(File, File) & toJSON(File, File)");
+		System.out.println(testName);
+
+		try
+		{
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			BinaryLoader.fromJSON(exampleFile, testFile);
+			assertSameContacts(contacts, new BinaryLoader(testFile).load(), testName);
+
+			BinaryLoader.toJSON(testFile, jsonFile);
+			assertSameContacts(contacts, new JSONLoader(jsonFile).load(), testName);
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#load()} on invalid files
+	 */
+	@Test
+	@DisplayName("load() errors")
+	@Order(3)
+	final void testLoadErrors()
+	{
+		String testName = new String("load() errors");
+		System.out.println(testName);
+
+		/*
+		 * JSON file is not a binary file
+		 */
+		assertThrows(ParseException.class,
+		             () -> new BinaryLoader(exampleFile).load(),
+		             testName + " unexpected JSON file");
+
+		try
+		{
+			BinaryLoader.fromJSON(exampleFile, testFile);
+			try (RandomAccessFile file = new RandomAccessFile(testFile, "rw"))
+			{
+				/*
+				 * Unsupported version
+				 */
+				file.seek(Integer.BYTES);
+				file.writeShort(BinaryLoader.Version + 1);
+				assertThrows(ParseException.class,
+				             () -> new BinaryLoader(testFile).load(),
+				             testName + " unexpected version");
+
+				/*
+				 * Truncated file
+				 */
+				file.seek(Integer.BYTES);
+				file.writeShort(BinaryLoader.Version);
+				file.setLength(file.length() / 2);
+				assertThrows(ParseException.class,
+				             () -> new BinaryLoader(testFile).load(),
+				             testName + " unexpected truncated file");
+			}
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#load()} in lazy mode
+	 */
+	@Test
+	@DisplayName("load() lazy")
+	@Order(4)
+	final void testLazyLoad()
+	{
+		String testName = new String("load() lazy");
+		System.out.println(testName);
+
+		try
+		{
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			BinaryLoader.fromJSON(exampleFile, testFile);
+			BinaryLoader loader = new BinaryLoader(testFile);
+			loader.setLazy(true);
+			assertTrue(loader.isLazy(), testName + " unexpected mode");
+			Set<Contact> stubs = loader.load();
+			assertEquals(contacts.size(), stubs.size(), testName + " unexpected size");
+			for (Contact stub : stubs)
+			{
+				assertFalse(stub.isResolved(), testName + " unexpected resolved " + stub);
+			}
+
+			/*
+			 * Stubs are sorted, linked and stay stubs in a manager
+			 */
+			ContactManager manager = new ContactManager();
+			manager.addAll(stubs);
+			Map<String, Contact> stubsByName = byName(stubs);
+			Contact paul = stubsByName.get("Paul Dupont");
+			Contact imt = stubsByName.get("IMT-BS");
+			assertSame(imt, ((PersonalContact) paul).getCorporation(),
+			           testName + " unexpected corporation");
+			assertFalse(paul.isResolved(), testName + " stub resolved by manager");
+
+			/*
+			 * Details are decoded on first access
+			 */
+			assertEquals(byName(contacts).get("Paul Dupont").getPhoneNumberKeySet(),
+			             paul.getPhoneNumberKeySet(),
+			             testName + " unexpected phones");
+			assertTrue(paul.isResolved(), testName + " stub not resolved");
+			long modifications = imt.getModifications();
+			imt.resolve();
+			assertEquals(modifications, imt.getModifications(),
+			             testName + " resolution is a modification");
+
+			/*
+			 * Search resolves remaining stubs
+			 */
+			manager.setPredicate(Contact.Type.ALL, "ensiie");
+			assertFalse(manager.getFilteredContacts().isEmpty(), testName + " nothing found");
+			for (Contact stub : stubs)
+			{
+				assertTrue(stub.isResolved(), testName + " unresolved " + stub);
+			}
+			assertSameContacts(contacts, stubs, testName);
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#save(Set)} and
+	 * {@link BinaryLoader#load()} with compressed files
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) & load() compressed")
+	@Order(5)
+	final void testCompression()
+	{
+		String testName = new String("save(Set<Contact>) & load() compressed");
+		System.out.println(testName);
+
+		try
+		{
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			for (Loader.Compression compression : Loader.Compression.values())
+			{
+				BinaryLoader loader = new BinaryLoader(testFile);
+				loader.setCompression(compression);
+				loader.save(contacts);
+				for (boolean lazy : new boolean[] {false, true})
+				{
+					loader = new BinaryLoader(testFile);
+					loader.setLazy(lazy);
+					assertSameContacts(contacts, loader.load(), testName + " " + compression);
+					assertEquals(compression, loader.getCompression(),
+					             testName + " unexpected compression");
+				}
+			}
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link Contact#resolve()} when a stub's details can't
+	 * be decoded
+	 */
+	@Test
+	@DisplayName("resolve() errors")
+	@Order(6)
+	final void testResolveErrors()
+	{
+		String testName = new String("resolve() errors");
+		System.out.println(testName);
+
+		Contact details = new CorporateContact("IMT-BS",
+		                                       null,
+		                                       null,
+		                                       null,
+		                                       URI.create("http://www.imt-bs.eu"),
+		                                       null);
+		AtomicInteger attempts = new AtomicInteger();
+		Contact stub = new CorporateContact("IMT-BS", (Contact s) ->
+		{
+			if (attempts.incrementAndGet() == 1)
+			{
+				throw new IllegalStateException("corrupted record");
+			}
+			return details;
+		});
+
+		/*
+		 * A failed resolution leaves the stub unresolved
+		 */
+		assertThrows(IllegalStateException.class,
+		             () -> stub.getLinksKeySet(),
+		             testName + " unexpected resolution");
+		assertFalse(stub.isResolved(), testName + " unexpected resolved stub");
+
+		/*
+		 * Resolution is attempted again on next access
+		 */
+		assertEquals(details.getLinksKeySet(),
+		             stub.getLinksKeySet(),
+		             testName + " unexpected links");
+		assertTrue(stub.isResolved(), testName + " stub not resolved");
+		assertEquals(2, attempts.get(), testName + " unexpected resolutions");
+	}
+
+	/**
+	 * Test method for {@link BinaryLoader#save(Set)} replacing an existing
+	 * file
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) permissions")
+	@Order(7)
+	final void testSavePermissions()
+	{
+		String testName = new String("save(Set<Contact>) permissions");
+		System.out.println(testName);
+
+		Path target = testFile.toPath();
+		try
+		{
+			assumeTrue(Files.getFileStore(target)
+			    .supportsFileAttributeView(PosixFileAttributeView.class),
+			           testName + " POSIX permissions not supported");
+			Set<PosixFilePermission> permissions =
+			    PosixFilePermissions.fromString("rw-r-----");
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			for (Loader.Compression compression : Loader.Compression.values())
+			{
+				Files.setPosixFilePermissions(target, permissions);
+				BinaryLoader loader = new BinaryLoader(testFile);
+				loader.setCompression(compression);
+				loader.save(contacts);
+				assertEquals(permissions,
+				             Files.getPosixFilePermissions(target),
+				             testName + " unexpected permissions " + compression);
+			}
+			try (Stream<Path> files = Files.list(target.getParent()))
+			{
+				String prefix = target.getFileName().toString() + '.';
+				assertTrue(files.noneMatch((Path file) ->
+				               file.getFileName().toString().startsWith(prefix)),
+				           testName + " unexpected temporary file left");
+			}
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+}
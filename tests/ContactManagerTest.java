@@ -0,0 +1,737 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import javafx.collections.ListChangeListener;
+import model.Contact;
+import model.ContactManager;
+import model.CorporateContact;
+import model.Note;
+import model.ParallelScan;
+import model.PersonalContact;
+import model.PhoneNumber;
+import model.SearchEngine;
+import model.SearchService;
+import model.TokenIndex;
+import model.TrigramIndex;
+
+/**
+ * Test class for {@link ContactManager}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("ContactManager")
+class ContactManagerTest
+{
+	/**
+	 * The manager under test
+	 */
+	private ContactManager testManager;
+
+	/**
+	 * First names for {@link PersonalContact}s
+	 */
+	private static final String[] firstNames = new String[] {
+		"Pierre",
+		"Sophie",
+		"Paul",
+		"Élodie"
+	};
+
+	/**
+	 * Last names for {@link PersonalContact}s
+	 */
+	private static final String[] lastNames = new String[] {
+		"Durand",
+		"Martin",
+		"Dupont",
+		"Bernard"
+	};
+
+	/**
+	 * Number of personal contacts
+	 */
+	private static final int size = firstNames.length;
+
+	/**
+	 * Build the personal contacts to add to the manager
+	 * @return a new list of personal contacts (in unsorted order)
+	 */
+	private static List<Contact> buildContacts()
+	{
+		List<Contact> list = new ArrayList<>();
+		for (int i = 0; i < size; i++)
+		{
+			list.add(new PersonalContact(firstNames[i],
+			                             lastNames[i],
+			                             null,
+			                             null,
+			                             null,
+			                             null,
+			                             null,
+			                             null));
+		}
+		list.add(new CorporateContact("ENSIIE", null, null, null, null, null));
+		return list;
+	}
+
+	/**
+	 * Check contacts in manager are sorted
+	 * @param testName the name of the current test
+	 */
+	private void assertSorted(String testName)
+	{
+		List<Contact> contacts = testManager.getContacts();
+		for (int i = 1; i < contacts.size(); i++)
+		{
+			assertTrue(contacts.get(i - 1).compareTo(contacts.get(i)) <= 0,
+			           testName + " unsorted contacts at " + i);
+		}
+	}
+
+	/**
+	 * Check if a contact (or one of its employees) has words matching the
+	 * words of a search as defined by {@link TokenIndex}: all tokens of the
+	 * search are tokens of the contact, except the last one which only starts
+	 * a token of the contact
+	 * @param contact the contact to check
+	 * @param search the search
+	 * @return true if the contact's words match the search words
+	 */
+	private static boolean matchesWords(Contact contact, String search)
+	{
+		List<String> searchTokens = TokenIndex.tokenize(Contact.fold(search));
+		List<String> tokens = new ArrayList<>();
+		for (String text : contact.searchableTexts())
+		{
+			tokens.addAll(TokenIndex.tokenize(Contact.fold(text)));
+		}
+		boolean matches = true;
+		for (int i = 0; i < searchTokens.size(); i++)
+		{
+			String searchToken = searchTokens.get(i);
+			boolean last = (i == (searchTokens.size() - 1));
+			matches &= tokens.stream().anyMatch((String token) ->
+			    (last ? token.startsWith(searchToken) : token.equals(searchToken)));
+		}
+		if (!matches && (contact instanceof CorporateContact))
+		{
+			for (PersonalContact employee : ((CorporateContact) contact).getEmployees())
+			{
+				matches |= matchesWords(employee, search);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ContactManager tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ContactManager tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Setup before each test
+	 * @throws Exception if setup fails
+	 */
+	@BeforeEach
+	void setUp() throws Exception
+	{
+		testManager = new ContactManager();
+	}
+
+	/**
+	 * Teardown after each test
+	 * @throws Exception if teardown fails
+	 */
+	@AfterEach
+	void tearDown() throws Exception
+	{
+		testManager = null;
+	}
+
+	/**
+	 * Test method for {@link ContactManager#add(Contact)}
+	 */
+	@Test
+	@DisplayName("add(Contact)")
+	@Order(1)
+	final void testAdd()
+	{
+		String testName = new String("add(Contact)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		List<Integer> changeSizes = new ArrayList<>();
+		testManager.getContacts().addListener((ListChangeListener<Contact>) change -> {
+			while (change.next())
+			{
+				assertFalse(change.wasPermutated(),
+				            testName + " unexpected permutation");
+				changeSizes.add(change.getAddedSize());
+			}
+		});
+
+		for (Contact contact : contacts)
+		{
+			assertTrue(testManager.add(contact),
+			           testName + " unexpected add failure");
+			assertSorted(testName);
+		}
+		assertEquals(contacts.size(), testManager.size(),
+		             testName + " unexpected size");
+		for (Integer changeSize : changeSizes)
+		{
+			assertEquals(1, changeSize.intValue(),
+			             testName + " unexpected change size");
+		}
+
+		/*
+		 * No duplicates
+		 */
+		for (Contact contact : buildContacts())
+		{
+			assertTrue(testManager.contains(contact),
+			           testName + " missing contact " + contact);
+			assertFalse(testManager.add(contact),
+			            testName + " unexpected duplicate " + contact);
+		}
+		assertEquals(contacts.size(), testManager.size(),
+		             testName + " unexpected size after duplicates");
+
+		/*
+		 * No null
+		 */
+		assertThrows(NullPointerException.class, () -> {
+			testManager.add(null);
+		});
+	}
+
+	/**
+	 * Test method for {@link ContactManager#remove(Object)}
+	 */
+	@Test
+	@DisplayName("remove(Object)")
+	@Order(2)
+	final void testRemove()
+	{
+		String testName = new String("remove(Object)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		for (Contact contact : contacts)
+		{
+			assertTrue(testManager.remove(contact),
+			           testName + " unexpected remove failure");
+			assertFalse(testManager.contains(contact),
+			            testName + " removed contact still present");
+			assertFalse(testManager.remove(contact),
+			            testName + " unexpected second remove");
+		}
+		assertTrue(testManager.isEmpty(), testName + " unexpected non empty");
+	}
+
+	/**
+	 * Test method for {@link ContactManager#addAll(java.util.Collection)}
+	 */
+	@Test
+	@DisplayName("addAll(Collection)")
+	@Order(3)
+	final void testAddAll()
+	{
+		String testName = new String("addAll(Collection)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.add(contacts.get(0));
+		List<Integer> changes = new ArrayList<>();
+		List<Contact> addedContacts = new ArrayList<>();
+		List<Contact> removedContacts = new ArrayList<>();
+		testManager.getContacts().addListener((ListChangeListener<Contact>) change -> {
+			changes.add(Integer.valueOf(changes.size()));
+			while (change.next())
+			{
+				addedContacts.addAll(change.getAddedSubList());
+				removedContacts.addAll(change.getRemoved());
+			}
+		});
+
+		/*
+		 * All contacts twice: duplicates should be ignored
+		 */
+		List<Contact> input = new ArrayList<>(contacts);
+		input.addAll(buildContacts());
+		assertTrue(testManager.addAll(input),
+		           testName + " unexpected addAll failure");
+		assertEquals(1, changes.size(), testName + " unexpected number of changes");
+		assertEquals(contacts.size(), testManager.size(),
+		             testName + " unexpected size");
+		assertSorted(testName);
+		/*
+		 * Already present contact should neither be removed nor re-added
+		 */
+		assertTrue(removedContacts.isEmpty(),
+		           testName + " unexpected removed contacts " + removedContacts);
+		assertEquals(contacts.size() - 1, addedContacts.size(),
+		             testName + " unexpected number of added contacts");
+		assertFalse(addedContacts.contains(contacts.get(0)),
+		            testName + " unexpected re-added contact");
+
+		assertFalse(testManager.addAll(buildContacts()),
+		            testName + " unexpected change with duplicates only");
+		assertEquals(1, changes.size(), testName + " unexpected change with duplicates only");
+
+		/*
+		 * A null contact in the middle of the collection should leave the
+		 * manager unchanged
+		 */
+		testManager.clear();
+		changes.clear();
+		List<Contact> withNull = buildContacts();
+		withNull.add(withNull.size() / 2, null);
+		assertThrows(NullPointerException.class,
+		             () -> testManager.addAll(withNull),
+		             testName + " unexpected null contact added");
+		assertTrue(testManager.isEmpty(), testName + " unexpected contacts added");
+		for (Contact contact : withNull)
+		{
+			if (contact != null)
+			{
+				assertFalse(testManager.contains(contact),
+				            testName + " unexpected contact " + contact);
+				assertTrue(testManager.add(contact),
+				           testName + " unexpected add failure " + contact);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setPredicate(Contact.Type, String)}
+	 */
+	@Test
+	@DisplayName("setPredicate(Contact.Type, String)")
+	@Order(4)
+	final void testSetPredicate()
+	{
+		String testName = new String("setPredicate(Contact.Type, String)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		String[] searches = new String[] {
+			"",
+			"Dur",
+			"rand",
+			"Pierre Dur",
+			"ENSIIE",
+			"o",
+			" ",
+			"unknown"
+		};
+
+		for (Contact.Type type : Contact.Type.all())
+		{
+			for (String search : searches)
+			{
+				testManager.setPredicate(type, search);
+				List<Contact> filtered = testManager.getFilteredContacts();
+				for (Contact contact : contacts)
+				{
+					boolean expected = ((type == Contact.Type.ALL)
+					    || (contact.getType() == type))
+					    && contact.contains(search);
+					assertEquals(expected, filtered.contains(contact),
+					             testName + " unexpected filtering of " + contact
+					                 + " with (" + type + ", \"" + search + "\")");
+				}
+			}
+		}
+
+		/*
+		 * Modified contacts should be found with their new values
+		 */
+		Contact contact = contacts.get(0);
+		contact.setName("Lefebvre");
+		assertTrue(testManager.update(contact), testName + " unexpected update failure");
+		testManager.setPredicate(Contact.Type.ALL, "Lefeb");
+		assertTrue(testManager.getFilteredContacts().contains(contact),
+		           testName + " modified contact not found");
+		assertSorted(testName);
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setSearched(String)} with all
+	 * {@link SearchEngine}s
+	 */
+	@Test
+	@DisplayName("setSearched(String)")
+	@Order(5)
+	final void testSetSearched()
+	{
+		String testName = new String("setSearched(String)");
+		System.out.println(testName);
+
+		SearchEngine[] engines = new SearchEngine[] {
+			new TrigramIndex(),
+			new TokenIndex()
+		};
+		String[] searches = new String[] {
+			"",
+			"D",
+			"Du",
+			"rand",
+			"ierre",
+			"ENSIIE",
+			"Sophie Du",
+			"Sophie ",
+			"rue du Mou",
+			"du Moulin ",
+			"e du Mou",
+			"nard",
+			"Bernard",
+			"xyz"
+		};
+
+		for (SearchEngine engine : engines)
+		{
+			testManager = new ContactManager(engine);
+			List<Contact> contacts = buildContacts();
+			testManager.addAll(contacts);
+			((CorporateContact) contacts.get(size)).add((PersonalContact) contacts.get(0));
+			testManager.update(contacts.get(0));
+			contacts.get(1).addNote("address", new Note("12 rue du Moulin"));
+			testManager.update(contacts.get(1));
+			for (String search : searches)
+			{
+				testManager.setSearched(search);
+				List<Contact> filtered = testManager.getFilteredContacts();
+				for (Contact contact : contacts)
+				{
+					boolean expected = contact.contains(search);
+					if (engine instanceof TokenIndex)
+					{
+						expected &= matchesWords(contact, search);
+					}
+					assertEquals(expected, filtered.contains(contact),
+					             testName + " unexpected filtering of " + contact
+					                 + " with \"" + search + "\" using "
+					                 + engine.getClass().getSimpleName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setPredicate(Contact.Type, String)}
+	 * with successively refined and widened searches
+	 */
+	@Test
+	@DisplayName("setPredicate(Contact.Type, String) refinements")
+	@Order(6)
+	final void testRefinedPredicate()
+	{
+		String testName = new String("setPredicate(Contact.Type, String) refinements");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		String[] searches = new String[] {
+			"D",
+			"Du",
+			"Dur",
+			"Du",
+			"",
+			"r",
+			"ra"
+		};
+		Contact.Type[] types = new Contact.Type[] {
+			Contact.Type.ALL,
+			Contact.Type.PERSONNAL,
+			Contact.Type.ALL
+		};
+
+		for (Contact.Type type : types)
+		{
+			for (String search : searches)
+			{
+				testManager.setPredicate(type, search);
+				if (search.equals("Dur"))
+				{
+					/*
+					 * Contacts added or modified after search should still
+					 * be filtered
+					 */
+					Contact contact = new PersonalContact("Jean", "Durandal" + type.ordinal(),
+					                                      null, null, null, null, null, null);
+					contacts.add(contact);
+					testManager.add(contact);
+					contact = contacts.get(1);
+					contact.setName(contact.getName() + "Dur");
+					testManager.update(contact);
+				}
+				List<Contact> filtered = testManager.getFilteredContacts();
+				for (Contact contact : contacts)
+				{
+					boolean expected = ((type == Contact.Type.ALL)
+					    || (contact.getType() == type))
+					    && contact.contains(search);
+					assertEquals(expected, filtered.contains(contact),
+					             testName + " unexpected filtering of " + contact
+					                 + " with (" + type + ", \"" + search + "\")");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link ContactManager#filter(Contact.Type, String)}
+	 * with a {@link SearchService}
+	 * @throws InterruptedException if interrupted while waiting for search
+	 */
+	@Test
+	@DisplayName("filter(Contact.Type, String) with SearchService")
+	@Order(7)
+	final void testSearchService() throws InterruptedException
+	{
+		String testName = new String("filter(Contact.Type, String) with SearchService");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		CountDownLatch published = new CountDownLatch(1);
+		List<Runnable> publications = new ArrayList<>();
+		SearchService service = new SearchService(testManager, 50, (Runnable r) -> {
+			synchronized (publications)
+			{
+				publications.add(r);
+			}
+			published.countDown();
+		});
+		testManager.setSearchService(service);
+
+		/*
+		 * Burst of searches: only the last one should be published
+		 */
+		String[] searches = new String[] {"D", "Du", "Dup"};
+		for (String search : searches)
+		{
+			testManager.setSearched(search);
+		}
+		assertTrue(published.await(5, TimeUnit.SECONDS),
+		           testName + " search result not published");
+		Thread.sleep(200);
+		synchronized (publications)
+		{
+			assertEquals(1, publications.size(),
+			             testName + " unexpected number of publications");
+			publications.get(0).run();
+		}
+		List<Contact> filtered = testManager.getFilteredContacts();
+		for (Contact contact : contacts)
+		{
+			assertEquals(contact.contains("Dup"), filtered.contains(contact),
+			             testName + " unexpected filtering of " + contact);
+		}
+		service.shutdown();
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setSearched(String)} regardless of
+	 * case, accents or phone numbers spacing
+	 */
+	@Test
+	@DisplayName("setSearched(String) folding")
+	@Order(8)
+	final void testFoldedSearch()
+	{
+		String testName = new String("setSearched(String) folding");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		Contact elodie = contacts.get(3);
+		elodie.addPhoneNumber("mobile", PhoneNumber.parse("06 90 76 24 51"));
+		testManager.addAll(contacts);
+
+		String[] searches = new String[] {
+			"elodie",
+			"ÉLODIE",
+			"lodi",
+			"0690762451",
+			"06 90 76"
+		};
+		for (String search : searches)
+		{
+			testManager.setSearched(search);
+			List<Contact> filtered = testManager.getFilteredContacts();
+			assertEquals(1, filtered.size(),
+			             testName + " unexpected number of contacts found with \""
+			                 + search + "\"");
+			assertTrue(filtered.contains(elodie),
+			           testName + " contact not found with \"" + search + "\"");
+		}
+
+		/*
+		 * Modified contacts should be searched with their new values
+		 */
+		elodie.removePhoneNumber("mobile");
+		assertFalse(elodie.contains("0690762451"),
+		            testName + " removed phone number still found");
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setParallelScan(int, ForkJoinPool)}
+	 * and {@link ParallelScan}
+	 */
+	@Test
+	@DisplayName("setParallelScan(int, ForkJoinPool)")
+	@Order(9)
+	final void testParallelScan()
+	{
+		String testName = new String("setParallelScan(int, ForkJoinPool)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		testManager.setParallelScan(1, null);
+		String[] searches = new String[] {"", "D", "r", "ENSIIE", "xyz"};
+		for (String search : searches)
+		{
+			testManager.setSearched(search);
+			List<Contact> filtered = testManager.getFilteredContacts();
+			for (Contact contact : contacts)
+			{
+				assertEquals(contact.contains(search), filtered.contains(contact),
+				             testName + " unexpected filtering of " + contact
+				                 + " with \"" + search + "\"");
+			}
+
+			/*
+			 * Scan results should keep contacts order
+			 */
+			Contact[] sorted = testManager.toArray(new Contact[0]);
+			List<Contact> expected = new ArrayList<>();
+			for (Contact contact : sorted)
+			{
+				if (contact.contains(search))
+				{
+					expected.add(contact);
+				}
+			}
+			assertEquals(expected,
+			             ParallelScan.scan(ForkJoinPool.commonPool(),
+			                               sorted,
+			                               (Contact c) -> c.contains(search),
+			                               1),
+			             testName + " unexpected scan result with \"" + search + "\"");
+		}
+	}
+
+	/**
+	 * Test method for {@link ContactManager#setPredicate(Contact.Type, String)}
+	 * with stubs whose details can't be decoded
+	 */
+	@Test
+	@DisplayName("setPredicate(Contact.Type, String) with invalid stubs")
+	@Order(10)
+	final void testInvalidStubs()
+	{
+		String testName = new String("setPredicate(Contact.Type, String) with invalid stubs");
+		System.out.println(testName);
+
+		Contact details = new CorporateContact("Valid", null, null, null, null, null);
+		Contact valid = new CorporateContact("Valid", (Contact stub) -> details);
+		Contact invalid = new CorporateContact("Invalid", (Contact stub) ->
+		{
+			throw new IllegalStateException("corrupted record");
+		});
+		Contact other = new CorporateContact("Other", (Contact stub) -> details);
+		testManager.addAll(List.of(invalid, valid, other));
+		for (String search : new String[] {"valid", "", "val"})
+		{
+			testManager.setPredicate(Contact.Type.ALL, search);
+			List<Contact> filtered = testManager.getFilteredContacts();
+			assertTrue(filtered.contains(valid),
+			           testName + " missing contact with \"" + search + "\"");
+			assertFalse(filtered.contains(invalid),
+			            testName + " unexpected invalid stub with \"" + search + "\"");
+		}
+		assertTrue(valid.isResolved() && other.isResolved(),
+		           testName + " valid stubs not indexed");
+		assertFalse(invalid.isResolved(), testName + " unexpected resolved stub");
+	}
+
+	/**
+	 * Test method for {@link ContactManager#update(Contact)}
+	 */
+	@Test
+	@DisplayName("update(Contact)")
+	@Order(11)
+	final void testUpdate()
+	{
+		String testName = new String("update(Contact)");
+		System.out.println(testName);
+
+		List<Contact> contacts = buildContacts();
+		testManager.addAll(contacts);
+		PersonalContact renamed = (PersonalContact) contacts.get(0);
+		String oldName = renamed.getName();
+		renamed.setName("Lefebvre");
+		assertTrue(testManager.update(renamed), testName + " unexpected update failure");
+		assertSorted(testName);
+		assertEquals(contacts.size(), testManager.size(), testName + " unexpected size");
+
+		/*
+		 * Renamed contact is indexed under its new name only
+		 */
+		assertTrue(testManager.contains(new PersonalContact(renamed.getFirstName(),
+		                                                    "Lefebvre",
+		                                                    null, null, null, null, null, null)),
+		           testName + " renamed contact not found");
+		PersonalContact previous = new PersonalContact(renamed.getFirstName(),
+		                                               oldName,
+		                                               null, null, null, null, null, null);
+		assertFalse(testManager.contains(previous), testName + " unexpected previous name");
+		assertTrue(testManager.add(previous), testName + " unexpected duplicate of previous name");
+		assertTrue(testManager.remove(renamed), testName + " unexpected remove failure");
+		assertFalse(testManager.update(renamed), testName + " unexpected update of removed contact");
+		assertTrue(testManager.containsAll(contacts.subList(1, contacts.size())),
+		           testName + " missing contacts");
+	}
+}
@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TreeSet;
@@ -29,6 +30,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -3511,6 +3513,45 @@ class ContactTest
 		}
 	}
 
+	/**
+	 * Test method for {@link model.Contact#getSearchText()} when the contact
+	 * is modified while its search text is built (as when searched in
+	 * background while edited).
+	 */
+	@Test
+	@DisplayName("getSearchText() modified while built")
+	@Order(42)
+	final void testGetSearchTextModified()
+	{
+		testName = new String("getSearchText() modified while built");
+		System.out.println(testName);
+
+		URI email = URI.create("mailto:late.edit@example.com");
+		boolean[] editing = new boolean[] {true};
+		testContact = new PersonalContact("Pierre", "Durand", null, null, null, null, null, null)
+		{
+			@Override
+			public Collection<String> searchableTexts()
+			{
+				Collection<String> texts = super.searchableTexts();
+				if (editing[0])
+				{
+					/*
+					 * Edited after its texts have been collected
+					 */
+					editing[0] = false;
+					addEmail("late", email);
+				}
+				return texts;
+			}
+		};
+
+		assertFalse(testContact.getSearchText().contains("late.edit"),
+		            testName + " unexpected text modified while built");
+		assertTrue(testContact.contains("late.edit"),
+		           testName + " stale search text kept after modification");
+	}
+
 	/**
 	 * Internal condition used to wait and notify on either
 	 * <ul>
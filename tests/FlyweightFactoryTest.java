@@ -0,0 +1,348 @@
+/**
+ *
+ */
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import utils.FlyweightFactory;
+import utils.FlyweightFactory.Retention;
+import utils.FlyweightFactory.Statistics;
+
+/**
+ * Test class for {@link FlyweightFactory}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("FlyweightFactory")
+class FlyweightFactoryTest
+{
+	/**
+	 * Element whose hash codes collide on purpose
+	 */
+	private static final class Colliding
+	{
+		/**
+		 * Content of this element
+		 */
+		private final String content;
+
+		/**
+		 * Constructor
+		 * @param content the content of this element
+		 */
+		private Colliding(String content)
+		{
+			this.content = content;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 42;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			return (obj instanceof Colliding)
+			    && ((Colliding) obj).content.equals(content);
+		}
+	}
+
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("FlyweightFactory tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("FlyweightFactory tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Test method for {@link FlyweightFactory#get(Object)}.
+	 */
+	@Test
+	@DisplayName("get(T)")
+	@Order(1)
+	final void testGetElement()
+	{
+		String testName = new String("get(T)");
+		System.out.println(testName);
+
+		FlyweightFactory<Colliding> factory = new FlyweightFactory<>();
+		Colliding first = new Colliding("first");
+		Colliding second = new Colliding("second");
+		assertSame(first, factory.get(first), testName + " unexpected instance");
+		assertSame(second,
+		           factory.get(second),
+		           testName + " unexpected instance with colliding hash");
+		assertSame(first,
+		           factory.get(new Colliding("first")),
+		           testName + " unexpected non canonical instance");
+		assertNull(factory.get((Colliding) null),
+		           testName + " unexpected non null instance");
+		assertEquals(2, factory.size(), testName + " unexpected size");
+		assertEquals(2, factory.getMisses(), testName + " unexpected misses");
+		assertEquals(1, factory.getHits(), testName + " unexpected hits");
+		factory.clear();
+		assertEquals(0, factory.size(), testName + " unexpected size after clear");
+	}
+
+	/**
+	 * Test method for {@link FlyweightFactory#get(Object, java.util.function.Function)}.
+	 */
+	@Test
+	@DisplayName("get(K, Function)")
+	@Order(2)
+	final void testGetKey()
+	{
+		String testName = new String("get(K, Function)");
+		System.out.println(testName);
+
+		FlyweightFactory<String> factory = new FlyweightFactory<>();
+		String element = factory.get(Integer.valueOf(1), (Integer i) -> "one");
+		assertSame(element,
+		           factory.get(Integer.valueOf(1), (Integer i) -> new String("one")),
+		           testName + " unexpected non canonical instance");
+		assertNull(factory.get(Integer.valueOf(2), (Integer i) -> null),
+		           testName + " unexpected non null instance");
+		assertEquals(1, factory.size(), testName + " unexpected null element stored");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new FlyweightFactory<String>(null, -1, Retention.STRONG),
+		             testName + " unexpected negative maximum size");
+	}
+
+	/**
+	 * Test method for {@link FlyweightFactory#get(Object, java.util.function.Function)}
+	 * from several threads.
+	 */
+	@Test
+	@DisplayName("get(K, Function) concurrently")
+	@Order(3)
+	final void testConcurrentGet()
+	{
+		String testName = new String("get(K, Function) concurrently");
+		System.out.println(testName);
+
+		FlyweightFactory<Object> factory = new FlyweightFactory<>();
+		AtomicInteger created = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 64; i++)
+		{
+			results.add(executor.submit(() -> factory.get("key", (String k) ->
+			{
+				created.incrementAndGet();
+				return new Object();
+			})));
+		}
+		try
+		{
+			Object element = results.get(0).get();
+			for (Future<Object> result : results)
+			{
+				assertSame(element, result.get(), testName + " unexpected instance");
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertEquals(1, created.get(), testName + " unexpected creations");
+	}
+
+	/**
+	 * Test method for bounded {@link FlyweightFactory}s.
+	 */
+	@Test
+	@DisplayName("bounded factory")
+	@Order(4)
+	final void testBounded()
+	{
+		String testName = new String("bounded factory");
+		System.out.println(testName);
+
+		FlyweightFactory<String> factory =
+		    new FlyweightFactory<>(null, 8, Retention.STRONG);
+		String recent = factory.get(Integer.valueOf(0), (Integer i) -> "element " + i);
+		String evicted = factory.get(Integer.valueOf(1), (Integer i) -> "element " + i);
+		for (int i = 2; i < 32; i++)
+		{
+			factory.get(Integer.valueOf(i), (Integer k) -> "element " + k);
+			assertSame(recent,
+			           factory.get(Integer.valueOf(0), (Integer k) -> "element " + k),
+			           testName + " unexpected eviction of recently used element");
+			assertTrue(factory.size() <= factory.getMaximumSize(),
+			           testName + " unexpected size " + factory.size());
+		}
+		assertNotSame(evicted,
+		              factory.get(Integer.valueOf(1), (Integer k) -> "element " + k),
+		              testName + " unexpected least recently used element");
+	}
+
+	/**
+	 * Test method for {@link Retention#WEAK} {@link FlyweightFactory}s.
+	 */
+	@Test
+	@DisplayName("weak retention")
+	@Order(5)
+	final void testWeakRetention()
+	{
+		String testName = new String("weak retention");
+		System.out.println(testName);
+
+		FlyweightFactory<Object> factory =
+		    new FlyweightFactory<>(null, 0, Retention.WEAK);
+		for (int i = 0; i < 16; i++)
+		{
+			factory.get(Integer.valueOf(i), (Integer k) -> new Object());
+		}
+		for (int i = 0; (i < 50) && (factory.size() > 0); i++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(10);
+			}
+			catch (InterruptedException e)
+			{
+				fail(testName + " interrupted");
+			}
+		}
+		assertEquals(0, factory.size(), testName + " unexpected retained elements");
+	}
+
+	/**
+	 * Test method for {@link FlyweightFactory#getStatistics()}.
+	 */
+	@Test
+	@DisplayName("getStatistics()")
+	@Order(6)
+	final void testStatistics()
+	{
+		String testName = new String("getStatistics()");
+		System.out.println(testName);
+
+		FlyweightFactory<String> factory =
+		    new FlyweightFactory<>(null, 4, Retention.STRONG);
+		factory.setWeigher((String element) -> element.length());
+		for (int key : new int[] {0, 1, 0, 1, 2, 3, 4, 5})
+		{
+			factory.get(Integer.valueOf(key), (Integer k) -> "element " + k);
+		}
+		factory.get(Integer.valueOf(-1), (Integer k) -> null);
+		Statistics statistics = factory.getStatistics();
+		System.out.println(statistics);
+		assertEquals(2, statistics.getHits(), testName + " unexpected hits");
+		assertEquals(7, statistics.getMisses(), testName + " unexpected misses");
+		assertEquals(6, statistics.getLoads(), testName + " unexpected loads");
+		assertTrue(statistics.getTotalLoadTime() > 0,
+		           testName + " unexpected load time");
+		assertEquals(4, statistics.getSize(), testName + " unexpected size");
+		assertEquals(2,
+		             statistics.getEvictions(),
+		             testName + " unexpected evictions");
+		assertEquals(statistics.getSize() * "element 0".length(),
+		             statistics.getEstimatedBytes(),
+		             testName + " unexpected estimated bytes");
+		assertEquals(2.0 / 9.0, statistics.getHitRate(), 1e-9,
+		             testName + " unexpected hit rate");
+
+		factory.resetStatistics();
+		statistics = factory.getStatistics();
+		assertEquals(0, statistics.getHits() + statistics.getMisses(),
+		             testName + " unexpected statistics after reset");
+		assertEquals(1.0, statistics.getHitRate(),
+		             testName + " unexpected hit rate after reset");
+	}
+
+	/**
+	 * Test method for {@link FlyweightFactory#register(String)} and
+	 * {@link FlyweightFactory#unregister()}.
+	 */
+	@Test
+	@DisplayName("register(String)")
+	@Order(7)
+	final void testRegister()
+	{
+		String testName = new String("register(String)");
+		System.out.println(testName);
+
+		FlyweightFactory<String> factory = new FlyweightFactory<>();
+		factory.get("key", (String k) -> "element");
+		factory.get("key", (String k) -> "element");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			ObjectName name = new ObjectName(FlyweightFactory.ObjectNamePrefix
+			    + ObjectName.quote("test"));
+			assertTrue(factory.register("test"), testName + " unexpected failure");
+			assertEquals(Long.valueOf(1),
+			             server.getAttribute(name, "Hits"),
+			             testName + " unexpected Hits attribute");
+			assertEquals(Integer.valueOf(1),
+			             server.getAttribute(name, "Size"),
+			             testName + " unexpected Size attribute");
+			assertFalse(new FlyweightFactory<String>().register("test"),
+			            testName + " unexpected duplicate registration");
+			factory.unregister();
+			assertFalse(server.isRegistered(name),
+			            testName + " unexpected registration after unregister");
+		}
+		catch (JMException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			factory.unregister();
+		}
+	}
+}
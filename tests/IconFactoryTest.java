@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import utils.FlyweightFactory;
+import utils.IconFactory;
+
+/**
+ * Test class for {@link IconFactory}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("IconFactory")
+class IconFactoryTest
+{
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("IconFactory tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("IconFactory tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Test method for {@link IconFactory#variantSizes(double)}.
+	 */
+	@Test
+	@DisplayName("variantSizes(double)")
+	@Order(1)
+	final void testVariantSizes()
+	{
+		String testName = new String("variantSizes(double)");
+		System.out.println(testName);
+
+		assertArrayEquals(new int[] {16, 32, 48},
+		                  IconFactory.variantSizes(16.0),
+		                  testName + " unexpected variants for exact size");
+		assertArrayEquals(new int[] {32, 48, 16},
+		                  IconFactory.variantSizes(24.0),
+		                  testName + " unexpected variants for intermediate size");
+		assertArrayEquals(new int[] {48, 32, 16},
+		                  IconFactory.variantSizes(100.0),
+		                  testName + " unexpected variants for large size");
+		assertArrayEquals(new int[] {16, 32, 48},
+		                  IconFactory.variantSizes(8.0),
+		                  testName + " unexpected variants for small size");
+	}
+
+	/**
+	 * Test method for {@link IconFactory#setScale(double)}.
+	 */
+	@Test
+	@DisplayName("setScale(double)")
+	@Order(2)
+	final void testSetScale()
+	{
+		String testName = new String("setScale(double)");
+		System.out.println(testName);
+
+		double scale = IconFactory.getScale();
+		IconFactory.setScale(2.0);
+		assertEquals(2.0, IconFactory.getScale(), testName + " unexpected scale");
+		IconFactory.setScale(scale);
+		assertThrows(IllegalArgumentException.class,
+		             () -> IconFactory.setScale(0.0),
+		             testName + " unexpected valid scale");
+		assertThrows(IllegalArgumentException.class,
+		             () -> IconFactory.setScale(Double.NaN),
+		             testName + " unexpected valid scale");
+	}
+
+	/**
+	 * Test method for {@link IconFactory#getIcon(String, double)} with an
+	 * icon without any image file.
+	 */
+	@Test
+	@DisplayName("getIcon(String, double) missing icon")
+	@Order(3)
+	final void testGetMissingIcon()
+	{
+		String testName = new String("getIcon(String, double) missing icon");
+		System.out.println(testName);
+
+		String name = "no_such_icon";
+		assertNull(IconFactory.getIcon(name, 16.0),
+		           testName + " unexpected icon");
+		FlyweightFactory.Statistics first = IconFactory.getStatistics();
+
+		/*
+		 * Missing variants should be remembered and not searched again
+		 */
+		assertNull(IconFactory.getIcon(name, 16.0),
+		           testName + " unexpected icon");
+		FlyweightFactory.Statistics second = IconFactory.getStatistics();
+		assertEquals(first.getMisses(), second.getMisses(),
+		             testName + " unexpected search of missing variants");
+		assertEquals(first.getHits() + IconFactory.IconSizes.length,
+		             second.getHits(),
+		             testName + " unexpected number of hits");
+	}
+}
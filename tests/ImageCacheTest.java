@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.net.URI;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import model.ImageCache;
+
+/**
+ * Test class for {@link ImageCache}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("ImageCache")
+class ImageCacheTest
+{
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ImageCache tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ImageCache tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Test method for {@link ImageCache#validate(URI)}.
+	 */
+	@Test
+	@DisplayName("validate(URI)")
+	@Order(1)
+	final void testValidate()
+	{
+		String testName = new String("validate(URI)");
+		System.out.println(testName);
+
+		try
+		{
+			ImageCache.validate(URI.create("icons/contacts-48.png"));
+			ImageCache.validate(new File("icons/contacts-48.png").toURI());
+			ImageCache.validate(URI.create("file:NoFile.png"));
+		}
+		catch (IllegalArgumentException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		assertThrows(IllegalArgumentException.class,
+		             () -> ImageCache.validate(URI.create("NoWay")),
+		             testName + " unexpected valid resource");
+		assertThrows(IllegalArgumentException.class,
+		             () -> ImageCache.validate(URI.create("noscheme:NoWay")),
+		             testName + " unexpected valid URL");
+		assertThrows(NullPointerException.class,
+		             () -> ImageCache.validate(null),
+		             testName + " unexpected valid null path");
+	}
+
+	/**
+	 * Test method for {@link ImageCache#setSize(double)}.
+	 */
+	@Test
+	@DisplayName("setSize(double)")
+	@Order(2)
+	final void testSetSize()
+	{
+		String testName = new String("setSize(double)");
+		System.out.println(testName);
+
+		assertEquals(ImageCache.DefaultSize,
+		             ImageCache.getSize(),
+		             testName + " unexpected default size");
+		ImageCache.setSize(64.0);
+		assertEquals(64.0, ImageCache.getSize(), testName + " unexpected size");
+		assertEquals(0,
+		             ImageCache.getStatistics().getSize(),
+		             testName + " unexpected images");
+		ImageCache.setSize(ImageCache.DefaultSize);
+		assertThrows(IllegalArgumentException.class,
+		             () -> ImageCache.setSize(-1.0),
+		             testName + " unexpected valid size");
+	}
+}
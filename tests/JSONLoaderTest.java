@@ -0,0 +1,811 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import model.Contact;
+import model.CorporateContact;
+import model.JSONLoader;
+import model.Loader;
+import model.PersonalContact;
+import model.PhoneNumber;
+
+/**
+ * Test class for {@link JSONLoader}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("JSONLoader")
+class JSONLoaderTest
+{
+	/**
+	 * Example file provided with the application
+	 */
+	private static final File exampleFile = new File("data/example.json");
+
+	/**
+	 * Number of contacts in generated files
+	 */
+	private static final int size = 1000;
+
+	/**
+	 * Temporary file used by tests
+	 */
+	private File testFile;
+
+	/**
+	 * Writes a contacts file with {@link #size} generated personal contacts
+	 * working for a single corporation
+	 * @param file the file to write
+	 * @param dateFirst whether the date should be written before or after
+	 * the contacts
+	 * @throws IOException if file can't be written
+	 */
+	private static void writeContacts(File file, boolean dateFirst)
+	    throws IOException
+	{
+		try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8))
+		{
+			writer.println("{");
+			if (dateFirst)
+			{
+				writer.println("\"date\" : \"2024/05/03\",");
+			}
+			writer.println("\"ignored\" : { \"contacts\" : [ 1, 2 ] },");
+			writer.println("\"contacts\" : [");
+			writer.println("{ \"name\" : \"Corp\", \"employees\" : [ \"First0 Last0\" ] }");
+			for (int i = 0; i < size; i++)
+			{
+				writer.println(", { \"name\" : \"Last" + i
+				    + "\", \"firstname\" : \"First" + i
+				    + "\", \"corporation\" : \"Corp\""
+				    + ", \"phones\" : [ { \"name\" : \"work\", \"number\" : \"01 69 36 73 "
+				    + String.format("%02d", i % 100) + "\" } ] }");
+			}
+			writer.println("]");
+			if (!dateFirst)
+			{
+				writer.println(", \"date\" : \"2024/05/03\"");
+			}
+			writer.println("}");
+		}
+	}
+
+	/**
+	 * Writes text to {@link #testFile}
+	 * @param text the text to write
+	 * @throws IOException if file can't be written
+	 */
+	private void write(String text) throws IOException
+	{
+		try (PrintWriter writer = new PrintWriter(testFile, StandardCharsets.UTF_8))
+		{
+			writer.print(text);
+		}
+	}
+
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("JSONLoader tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("JSONLoader tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Setup before each test
+	 * @throws Exception if setup fails
+	 */
+	@BeforeEach
+	void setUp() throws Exception
+	{
+		testFile = File.createTempFile("contacts", ".json");
+	}
+
+	/**
+	 * Teardown after each test
+	 * @throws Exception if teardown fails
+	 */
+	@AfterEach
+	void tearDown() throws Exception
+	{
+		testFile.delete();
+		testFile = null;
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#load()} on example file
+	 */
+	@Test
+	@DisplayName("load() example")
+	@Order(1)
+	final void testLoadExample()
+	{
+		String testName = new String("load() example");
+		System.out.println(testName);
+
+		JSONLoader loader = new JSONLoader(exampleFile);
+		Set<Contact> contacts = null;
+		try
+		{
+			contacts = loader.load();
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+
+		assertEquals("2024/05/03",
+		             new SimpleDateFormat("yyyy/MM/dd").format(loader.getDate()),
+		             testName + " unexpected date");
+
+		Map<String, Contact> byName = new HashMap<>();
+		for (Contact contact : contacts)
+		{
+			byName.put(contact.toString(), contact);
+		}
+		Contact ensiie = byName.get("ENSIIE");
+		Contact imt = byName.get("IMT-BS");
+		Contact paul = byName.get("Paul Dupont");
+		assertTrue(ensiie instanceof CorporateContact,
+		           testName + " missing corporation ENSIIE");
+		assertTrue(imt instanceof CorporateContact,
+		           testName + " missing corporation IMT-BS");
+		assertTrue(paul instanceof PersonalContact,
+		           testName + " missing contact Paul Dupont");
+		assertSame(imt, ((PersonalContact) paul).getCorporation(),
+		           testName + " unexpected corporation");
+		assertTrue(((CorporateContact) imt).contains((PersonalContact) paul),
+		           testName + " missing employee");
+		assertNotNull(ensiie.getPhoneNumber("bureau"),
+		              testName + " missing phone number");
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#load()} on generated files with
+	 * date either before or after contacts
+	 */
+	@Test
+	@DisplayName("load() generated")
+	@Order(2)
+	final void testLoadGenerated()
+	{
+		String testName = new String("load() generated");
+		System.out.println(testName);
+
+		for (boolean dateFirst : new boolean[] {true, false})
+		{
+			Set<Contact> contacts = null;
+			JSONLoader loader = new JSONLoader(testFile);
+			try
+			{
+				writeContacts(testFile, dateFirst);
+				contacts = loader.load();
+			}
+			catch (IOException | ParseException e)
+			{
+				fail(testName + " unexpected exception " + e.getLocalizedMessage());
+			}
+
+			assertEquals(size + 1, contacts.size(), testName + " unexpected size");
+			assertNotNull(loader.getDate(), testName + " missing date");
+			for (Contact contact : contacts)
+			{
+				if (contact instanceof PersonalContact)
+				{
+					PersonalContact pc = (PersonalContact) contact;
+					assertNotNull(pc.getCorporation(),
+					              testName + " missing corporation of " + pc);
+					assertEquals(1, pc.getPhoneNumberKeySet().size(),
+					             testName + " missing phone number of " + pc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#load()} on invalid files
+	 */
+	@Test
+	@DisplayName("load() errors")
+	@Order(3)
+	final void testLoadErrors()
+	{
+		String testName = new String("load() errors");
+		System.out.println(testName);
+
+		String[] invalids = new String[] {
+			"[]",
+			"{ \"contacts\" : [] }",
+			"{ \"date\" : \"2024/05/03\" }",
+			"{ \"date\" : \"2024/05/03\", \"contacts\" : {} }",
+			"{ \"date\" : \"today\", \"contacts\" : [] }"
+		};
+		JSONLoader loader = new JSONLoader(testFile);
+		for (String invalid : invalids)
+		{
+			try
+			{
+				write(invalid);
+			}
+			catch (IOException e)
+			{
+				fail(testName + " unexpected exception " + e.getLocalizedMessage());
+			}
+			assertThrows(ParseException.class,
+			             () -> loader.load(),
+			             testName + " unexpected success on " + invalid);
+		}
+
+		try
+		{
+			write("{ \"date\" : \"2024/05/03\", \"contacts\" : [ { \"name\" : ");
+		}
+		catch (IOException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		assertThrows(IOException.class,
+		             () -> loader.load(),
+		             testName + " unexpected success on truncated file");
+	}
+	/**
+	 * Test method for {@link JSONLoader#save(Set)}
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>)")
+	@Order(4)
+	final void testSave()
+	{
+		String testName = new String("save(Set<Contact>)");
+		System.out.println(testName);
+
+		Set<Contact> contacts = null;
+		Set<Contact> reloaded = null;
+		try
+		{
+			contacts = new JSONLoader(exampleFile).load();
+			write("previous content");
+			new JSONLoader(testFile).save(contacts);
+			reloaded = new JSONLoader(testFile).load();
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+
+		assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size");
+		Map<String, Contact> byName = new HashMap<>();
+		for (Contact contact : reloaded)
+		{
+			byName.put(contact.toString(), contact);
+		}
+		for (Contact contact : contacts)
+		{
+			Contact other = byName.get(contact.toString());
+			assertNotNull(other, testName + " missing contact " + contact);
+			assertEquals(contact.getType(), other.getType(),
+			             testName + " unexpected type of " + contact);
+			for (String key : contact.getPhoneNumberKeySet())
+			{
+				assertEquals(contact.getPhoneNumber(key), other.getPhoneNumber(key),
+				             testName + " unexpected phone number of " + contact);
+			}
+			if (contact instanceof PersonalContact)
+			{
+				assertEquals(String.valueOf(((PersonalContact) contact).getCorporation()),
+				             String.valueOf(((PersonalContact) other).getCorporation()),
+				             testName + " unexpected corporation of " + contact);
+			}
+		}
+
+		File[] siblings = testFile.getAbsoluteFile().getParentFile()
+		    .listFiles((File dir, String name) -> name.startsWith(testFile.getName())
+		        && !name.equals(testFile.getName()));
+		assertEquals(0, siblings.length, testName + " temporary file left");
+	}
+	/**
+	 * Test method for {@link JSONLoader#setParallelLoad(int, ExecutorService)}
+	 */
+	@Test
+	@DisplayName("setParallelLoad(int, ExecutorService)")
+	@Order(5)
+	final void testParallelLoad()
+	{
+		String testName = new String("setParallelLoad(int, ExecutorService)");
+		System.out.println(testName);
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			writeContacts(testFile, true);
+			JSONLoader sequential = new JSONLoader(testFile);
+			sequential.setParallelLoad(0, null);
+			assertEquals(0, sequential.getChunkSize(), testName + " unexpected chunk size");
+			List<Contact> expected = new ArrayList<>(sequential.load());
+
+			for (int chunkSize : new int[] {1, 7, size, 10 * size})
+			{
+				JSONLoader parallel = new JSONLoader(testFile);
+				parallel.setParallelLoad(chunkSize, pool);
+				List<Contact> contacts = new ArrayList<>(parallel.load());
+				assertEquals(expected.size(), contacts.size(),
+				             testName + " unexpected size with chunks of " + chunkSize);
+				for (int i = 0; i < contacts.size(); i++)
+				{
+					Contact contact = contacts.get(i);
+					assertEquals(expected.get(i).toString(), contact.toString(),
+					             testName + " unexpected contact with chunks of " + chunkSize);
+					if (contact instanceof PersonalContact)
+					{
+						assertNotNull(((PersonalContact) contact).getCorporation(),
+						              testName + " missing corporation of " + contact);
+					}
+				}
+			}
+
+			write("{ \"date\" : \"2024/05/03\", \"contacts\" : [ { \"name\" : \"A\" }, { \"firstname\" : \"B\" } ] }");
+			JSONLoader parallel = new JSONLoader(testFile);
+			parallel.setParallelLoad(1, pool);
+			assertThrows(NullPointerException.class,
+			             () -> parallel.load(),
+			             testName + " unexpected success on contact without name");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+	/**
+	 * Find a contact by name in a set of contacts
+	 * @param contacts the contacts to search
+	 * @param name the name of the contact (as provided by toString)
+	 * @return the contact with this name or null
+	 */
+	private static Contact find(Set<Contact> contacts, String name)
+	{
+		for (Contact contact : contacts)
+		{
+			if (contact.toString().equals(name))
+			{
+				return contact;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#save(Set)} after a load: only changes
+	 * should be appended to change log
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) incremental")
+	@Order(6)
+	final void testIncrementalSave()
+	{
+		String testName = new String("save(Set<Contact>) incremental");
+		System.out.println(testName);
+
+		try
+		{
+			writeContacts(testFile, true);
+			JSONLoader loader = new JSONLoader(testFile);
+			File logFile = loader.getLogFile();
+			Set<Contact> contacts = loader.load();
+			long length = testFile.length();
+
+			/*
+			 * Modify, rename, remove and add contacts
+			 */
+			find(contacts, "First1 Last1").addPhoneNumber("home", PhoneNumber.parse("0690762451"));
+			((PersonalContact) find(contacts, "First2 Last2")).setFirstName("Second2");
+			contacts.remove(find(contacts, "First3 Last3"));
+			contacts.add(new PersonalContact("New", "Contact", null, null, null, null, null, null));
+			loader.save(contacts);
+
+			assertEquals(length, testFile.length(), testName + " file rewritten");
+			assertTrue(logFile.exists(), testName + " missing change log");
+			long logLength = logFile.length();
+
+			/*
+			 * Saving again without changes should not write anything
+			 */
+			loader.save(contacts);
+			assertEquals(logLength, logFile.length(), testName + " unexpected change log growth");
+
+			Set<Contact> reloaded = new JSONLoader(testFile).load();
+			assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size");
+			assertEquals(2, find(reloaded, "First1 Last1").getPhoneNumberKeySet().size(),
+			             testName + " missing modification");
+			assertNotNull(find(reloaded, "Second2 Last2"), testName + " missing renamed contact");
+			assertEquals(null, find(reloaded, "First2 Last2"), testName + " unexpected old name");
+			assertEquals(null, find(reloaded, "First3 Last3"), testName + " unexpected removed contact");
+			assertNotNull(((PersonalContact) find(reloaded, "Second2 Last2")).getCorporation(),
+			              testName + " missing corporation of renamed contact");
+
+			/*
+			 * Incomplete last record should be ignored then overwritten
+			 */
+			try (FileWriter writer = new FileWriter(logFile, StandardCharsets.UTF_8, true))
+			{
+				writer.write("{ \"date\" : \"2024/05/03\", \"removed\" : [ \"First4");
+			}
+			loader = new JSONLoader(testFile);
+			contacts = loader.load();
+			assertNotNull(find(contacts, "First4 Last4"), testName + " unexpected removal");
+			find(contacts, "First5 Last5").addPhoneNumber("home", PhoneNumber.parse("0690762451"));
+			loader.save(contacts);
+			reloaded = new JSONLoader(testFile).load();
+			assertEquals(2, find(reloaded, "First5 Last5").getPhoneNumberKeySet().size(),
+			             testName + " missing modification after incomplete record");
+			assertEquals(2, find(reloaded, "First1 Last1").getPhoneNumberKeySet().size(),
+			             testName + " missing previous modification");
+
+			/*
+			 * Compaction
+			 */
+			loader.setCompactionThreshold(2);
+			find(contacts, "First6 Last6").addPhoneNumber("home", PhoneNumber.parse("0690762451"));
+			find(contacts, "First7 Last7").addPhoneNumber("home", PhoneNumber.parse("0690762451"));
+			loader.save(contacts);
+			assertTrue(!logFile.exists(), testName + " change log not compacted");
+			reloaded = new JSONLoader(testFile).load();
+			assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size after compaction");
+			assertEquals(2, find(reloaded, "First7 Last7").getPhoneNumberKeySet().size(),
+			             testName + " missing modification after compaction");
+			assertNotNull(find(reloaded, "New Contact"), testName + " missing added contact");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			new File(testFile.getPath() + ".log").delete();
+		}
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#save(Set)} and
+	 * {@link JSONLoader#load()} with compressed files
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) & load() compressed")
+	@Order(7)
+	final void testCompression()
+	{
+		String testName = new String("save(Set<Contact>) & load() compressed");
+		System.out.println(testName);
+
+		try
+		{
+			writeContacts(testFile, true);
+			Set<Contact> contacts = new JSONLoader(testFile).load();
+			long uncompressedLength = testFile.length();
+			for (Loader.Compression compression : Loader.Compression.values())
+			{
+				JSONLoader loader = new JSONLoader(testFile);
+				loader.setCompression(compression);
+				loader.save(contacts);
+				try (InputStream input = new BufferedInputStream(new FileInputStream(testFile)))
+				{
+					assertEquals(compression, Loader.Compression.detect(input),
+					             testName + " unexpected detected compression");
+				}
+				if (compression != Loader.Compression.NONE)
+				{
+					assertTrue(testFile.length() < (uncompressedLength / 4),
+					           testName + " file not compressed with " + compression);
+				}
+
+				/*
+				 * Compression is detected on load and kept on save
+				 */
+				loader = new JSONLoader(testFile);
+				Set<Contact> reloaded = loader.load();
+				assertEquals(compression, loader.getCompression(),
+				             testName + " unexpected compression");
+				assertEquals(contacts.size(), reloaded.size(),
+				             testName + " unexpected size with " + compression);
+				assertNotNull(find(reloaded, "First9 Last9").getPhoneNumber("work"),
+				              testName + " missing phone number with " + compression);
+				loader.setCompactionThreshold(0);
+				loader.save(reloaded);
+				assertEquals(contacts.size(), new JSONLoader(testFile).load().size(),
+				             testName + " unexpected size after save with " + compression);
+			}
+
+			/*
+			 * Compression inferred from file extension
+			 */
+			assertEquals(Loader.Compression.GZIP,
+			             new JSONLoader(new File("contacts.json.gz")).getCompression(),
+			             testName + " unexpected compression of .gz file");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#save(Set)} and
+	 * {@link JSONLoader#load()} with line delimited (NDJSON) files
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) & load() NDJSON")
+	@Order(8)
+	final void testLineDelimited()
+	{
+		String testName = new String("save(Set<Contact>) & load() NDJSON");
+		System.out.println(testName);
+
+		File ndjsonFile = null;
+		try
+		{
+			ndjsonFile = File.createTempFile("contacts", ".ndjson");
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			JSONLoader loader = new JSONLoader(ndjsonFile);
+			assertTrue(loader.isLineDelimited(), testName + " unexpected mode");
+			loader.save(contacts);
+			List<String> lines = Files.readAllLines(ndjsonFile.toPath(), StandardCharsets.UTF_8);
+			assertEquals(contacts.size(), lines.size(), testName + " unexpected number of lines");
+			for (String line : lines)
+			{
+				assertTrue(line.startsWith("{\"name\":") && line.endsWith("}"),
+				           testName + " unexpected line " + line);
+			}
+
+			loader = new JSONLoader(ndjsonFile);
+			Set<Contact> reloaded = loader.load();
+			assertNotNull(loader.getDate(), testName + " missing date");
+			assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size");
+			assertSame(find(reloaded, "IMT-BS"),
+			           ((PersonalContact) find(reloaded, "Paul Dupont")).getCorporation(),
+			           testName + " unexpected corporation");
+
+			/*
+			 * Appended lines add or replace contacts
+			 */
+			try (PrintWriter writer = new PrintWriter(new FileWriter(ndjsonFile, StandardCharsets.UTF_8, true)))
+			{
+				writer.println();
+				writer.println("{\"name\":\"Appended\",\"firstname\":\"New\",\"corporation\":\"ENSIIE\"}");
+				writer.println("{\"name\":\"Dupont\",\"firstname\":\"Paul\","
+				    + "\"phones\":[{\"name\":\"home\",\"number\":\"0690762450\"}]}");
+			}
+			reloaded = new JSONLoader(ndjsonFile).load();
+			assertEquals(contacts.size() + 1, reloaded.size(), testName + " unexpected size after append");
+			PersonalContact appended = (PersonalContact) find(reloaded, "New Appended");
+			assertNotNull(appended, testName + " missing appended contact");
+			assertSame(find(reloaded, "ENSIIE"), appended.getCorporation(),
+			           testName + " unexpected appended corporation");
+			Contact paul = find(reloaded, "Paul Dupont");
+			assertEquals(1, paul.getPhoneNumberKeySet().size(), testName + " contact not replaced");
+			assertNotNull(paul.getPhoneNumber("home"), testName + " missing replaced phone number");
+
+			/*
+			 * Invalid line
+			 */
+			try (PrintWriter writer = new PrintWriter(new FileWriter(ndjsonFile, StandardCharsets.UTF_8, true)))
+			{
+				writer.println("[ 1, 2 ]");
+			}
+			File invalidFile = ndjsonFile;
+			assertThrows(ParseException.class,
+			             () -> new JSONLoader(invalidFile).load(),
+			             testName + " unexpected invalid line");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			if (ndjsonFile != null)
+			{
+				ndjsonFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#save(Set)} replacing an existing
+	 * file
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) permissions")
+	@Order(9)
+	final void testSavePermissions()
+	{
+		String testName = new String("save(Set<Contact>) permissions");
+		System.out.println(testName);
+
+		Path target = testFile.toPath();
+		try
+		{
+			assumeTrue(Files.getFileStore(target)
+			    .supportsFileAttributeView(PosixFileAttributeView.class),
+			           testName + " POSIX permissions not supported");
+			Set<PosixFilePermission> permissions =
+			    PosixFilePermissions.fromString("rw-r-----");
+			Files.setPosixFilePermissions(target, permissions);
+			JSONLoader loader = new JSONLoader(testFile);
+			loader.save(new JSONLoader(exampleFile).load());
+			assertEquals(permissions,
+			             Files.getPosixFilePermissions(target),
+			             testName + " unexpected permissions");
+			try (Stream<Path> files = Files.list(target.getParent()))
+			{
+				String prefix = target.getFileName().toString() + '.';
+				assertTrue(files.noneMatch((Path file) ->
+				               file.getFileName().toString().startsWith(prefix)),
+				           testName + " unexpected temporary file left");
+			}
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#load()} linking employees and
+	 * corporations by name, with dangling links and duplicate names
+	 */
+	@Test
+	@DisplayName("load() links")
+	@Order(10)
+	final void testLoadLinks()
+	{
+		String testName = new String("load() links");
+		System.out.println(testName);
+
+		Set<Contact> contacts = null;
+		try
+		{
+			write("{ \"date\" : \"2024/05/03\", \"contacts\" : [\n"
+			    + "{ \"name\" : \"Corp\", \"employees\" : [ \"Alice Martin\", \"Ghost Nobody\" ] },\n"
+			    + "{ \"name\" : \"Martin\", \"firstname\" : \"Alice\", \"corporation\" : \"Corp\" },\n"
+			    + "{ \"name\" : \"Durand\", \"firstname\" : \"Bob\", \"corporation\" : \"Nowhere\" },\n"
+			    + "{ \"name\" : \"Other\", \"employees\" : [ \"Carol Petit\" ] },\n"
+			    + "{ \"name\" : \"Petit\", \"firstname\" : \"Carol\", \"corporation\" : \"Other\" },\n"
+			    + "{ \"name\" : \"Martin\", \"firstname\" : \"Alice\", \"corporation\" : \"Other\" },\n"
+			    + "{ \"name\" : \"Corp\", \"employees\" : [ \"Bob Durand\" ] }\n"
+			    + "] }");
+			contacts = new JSONLoader(testFile).load();
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+
+		/*
+		 * Duplicate names are only loaded once
+		 */
+		assertEquals(5, contacts.size(), testName + " unexpected size");
+		CorporateContact corp = (CorporateContact) find(contacts, "Corp");
+		CorporateContact other = (CorporateContact) find(contacts, "Other");
+		PersonalContact alice = (PersonalContact) find(contacts, "Alice Martin");
+		PersonalContact bob = (PersonalContact) find(contacts, "Bob Durand");
+		PersonalContact carol = (PersonalContact) find(contacts, "Carol Petit");
+
+		/*
+		 * Links of the loaded contacts are resolved to loaded contacts,
+		 * links of ignored duplicates are dropped
+		 */
+		assertSame(corp, alice.getCorporation(), testName + " unexpected corporation of " + alice);
+		assertSame(other, carol.getCorporation(), testName + " unexpected corporation of " + carol);
+		assertEquals(Set.of(alice), corp.getEmployees(), testName + " unexpected employees of " + corp);
+		assertEquals(Set.of(carol), other.getEmployees(), testName + " unexpected employees of " + other);
+
+		/*
+		 * Dangling links are dropped
+		 */
+		assertNull(bob.getCorporation(), testName + " unexpected corporation of " + bob);
+		assertNull(find(contacts, "Ghost Nobody"), testName + " unexpected dangling employee");
+	}
+
+	/**
+	 * Test method for {@link JSONLoader#save(Set)} by a new loader when a
+	 * change log has been left by another loader
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) with another change log")
+	@Order(11)
+	final void testSaveOtherLog()
+	{
+		String testName = new String("save(Set<Contact>) with another change log");
+		System.out.println(testName);
+
+		try
+		{
+			writeContacts(testFile, true);
+			JSONLoader other = new JSONLoader(testFile);
+			File logFile = other.getLogFile();
+			Set<Contact> otherContacts = other.load();
+			otherContacts.remove(find(otherContacts, "First3 Last3"));
+			other.save(otherContacts);
+			assertTrue(logFile.exists(), testName + " missing change log");
+
+			/*
+			 * New loader saving contacts recorded elsewhere
+			 */
+			Set<Contact> contacts = new JSONLoader(exampleFile).load();
+			contacts.add(new PersonalContact("First3", "Last3", null, null, null, null, null, null));
+			new JSONLoader(testFile).save(contacts);
+			assertTrue(!logFile.exists(), testName + " change log not deleted");
+			Set<Contact> reloaded = new JSONLoader(testFile).load();
+			assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size");
+			assertNotNull(find(reloaded, "First3 Last3"),
+			              testName + " change log replayed over saved contacts");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+		finally
+		{
+			new File(testFile.getPath() + ".log").delete();
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.ParseException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import model.Contact;
+import model.CorporateContact;
+import model.JSONLoader;
+import model.JournalLoader;
+import model.PersonalContact;
+import model.PhoneNumber;
+
+/**
+ * Test class for {@link JournalLoader}
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@DisplayName("JournalLoader")
+class JournalLoaderTest
+{
+	/**
+	 * Number of personal contacts to save
+	 */
+	private static final int size = 100;
+
+	/**
+	 * Snapshot file used by tests
+	 */
+	private File testFile;
+
+	/**
+	 * Build contacts to save: {@link #size} personal contacts working for a
+	 * single corporation
+	 * @return a new set of contacts
+	 */
+	private static Set<Contact> buildContacts()
+	{
+		Set<Contact> contacts = new TreeSet<>();
+		CorporateContact corporation = new CorporateContact("Corp", null, null, null, null, null);
+		contacts.add(corporation);
+		for (int i = 0; i < size; i++)
+		{
+			PersonalContact contact = new PersonalContact("First" + i,
+			                                              "Last" + i,
+			                                              null,
+			                                              null,
+			                                              null,
+			                                              null,
+			                                              null,
+			                                              null);
+			contact.setCorporation(corporation);
+			contacts.add(contact);
+		}
+		return contacts;
+	}
+
+	/**
+	 * Find a contact by name in a set of contacts
+	 * @param contacts the contacts to search
+	 * @param name the name of the contact (as provided by toString)
+	 * @return the contact with this name or null
+	 */
+	private static Contact find(Set<Contact> contacts, String name)
+	{
+		for (Contact contact : contacts)
+		{
+			if (contact.toString().equals(name))
+			{
+				return contact;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Setup before all tests
+	 * @throws Exception if setup fails
+	 */
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("JournalLoader tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 * @throws Exception if teardown fails
+	 */
+	@AfterAll
+	static void tearDownAfterClass() throws Exception
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("JournalLoader tests end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Setup before each test
+	 * @throws Exception if setup fails
+	 */
+	@BeforeEach
+	void setUp() throws Exception
+	{
+		testFile = File.createTempFile("contacts", ".json");
+	}
+
+	/**
+	 * Teardown after each test
+	 * @throws Exception if teardown fails
+	 */
+	@AfterEach
+	void tearDown() throws Exception
+	{
+		new File(testFile.getPath() + JournalLoader.JournalExtension).delete();
+		testFile.delete();
+		testFile = null;
+	}
+
+	/**
+	 * Test method for {@link JournalLoader#save(Set)} and
+	 * {@link JournalLoader#load()}
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) & load()")
+	@Order(1)
+	final void testSaveLoad()
+	{
+		String testName = new String("save(Set<Contact>) & load()");
+		System.out.println(testName);
+
+		try
+		{
+			JournalLoader loader = new JournalLoader(testFile);
+			Set<Contact> contacts = buildContacts();
+			loader.save(contacts);
+			assertFalse(loader.getLogFile().exists(), testName + " unexpected journal");
+
+			/*
+			 * Snapshot is a regular JSON file
+			 */
+			assertEquals(contacts.size(), new JSONLoader(testFile).load().size(),
+			             testName + " unexpected snapshot size");
+
+			long snapshotLength = testFile.length();
+			for (int i = 0; i < 3; i++)
+			{
+				find(contacts, "First" + i + " Last" + i)
+				    .addPhoneNumber("home", PhoneNumber.parse("069076245" + i));
+				loader.save(contacts);
+			}
+			contacts.remove(find(contacts, "First3 Last3"));
+			loader.save(contacts);
+			assertEquals(snapshotLength, testFile.length(), testName + " snapshot rewritten");
+			assertTrue(loader.getLogFile().exists(), testName + " missing journal");
+
+			Set<Contact> reloaded = new JournalLoader(testFile).load();
+			assertEquals(contacts.size(), reloaded.size(), testName + " unexpected size");
+			for (int i = 0; i < 3; i++)
+			{
+				assertNotNull(find(reloaded, "First" + i + " Last" + i).getPhoneNumber("home"),
+				              testName + " missing journaled modification " + i);
+			}
+			assertNull(find(reloaded, "First3 Last3"), testName + " unexpected removed contact");
+			assertNotNull(((PersonalContact) find(reloaded, "First0 Last0")).getCorporation(),
+			              testName + " missing corporation");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link JournalLoader#load()} with a corrupted journal
+	 */
+	@Test
+	@DisplayName("load() recovery")
+	@Order(2)
+	final void testRecovery()
+	{
+		String testName = new String("load() recovery");
+		System.out.println(testName);
+
+		try
+		{
+			JournalLoader loader = new JournalLoader(testFile);
+			Set<Contact> contacts = buildContacts();
+			loader.save(contacts);
+			find(contacts, "First0 Last0").addPhoneNumber("home", PhoneNumber.parse("0690762450"));
+			loader.save(contacts);
+			long validLength = loader.getLogFile().length();
+			find(contacts, "First1 Last1").addPhoneNumber("home", PhoneNumber.parse("0690762451"));
+			loader.save(contacts);
+
+			/*
+			 * Corrupt a phone number digit of the last record (still valid JSON)
+			 */
+			try (RandomAccessFile journal = new RandomAccessFile(loader.getLogFile(), "rw"))
+			{
+				byte[] bytes = new byte[(int) (journal.length() - validLength)];
+				journal.seek(validLength);
+				journal.readFully(bytes);
+				String record = new String(bytes, "UTF-8");
+				int index = record.lastIndexOf("51");
+				assertTrue(index > 0, testName + " missing phone number in journal");
+				journal.seek(validLength + record.substring(0, index).getBytes("UTF-8").length);
+				journal.write('7');
+			}
+
+			loader = new JournalLoader(testFile);
+			Set<Contact> reloaded = loader.load();
+			assertNotNull(find(reloaded, "First0 Last0").getPhoneNumber("home"),
+			              testName + " missing valid record");
+			assertNull(find(reloaded, "First1 Last1").getPhoneNumber("home"),
+			           testName + " unexpected corrupted record");
+			assertEquals(validLength, loader.getLogFile().length(),
+			             testName + " journal not truncated");
+
+			/*
+			 * Journal goes on after recovery
+			 */
+			find(reloaded, "First2 Last2").addPhoneNumber("home", PhoneNumber.parse("0690762452"));
+			loader.save(reloaded);
+			reloaded = new JournalLoader(testFile).load();
+			assertNotNull(find(reloaded, "First0 Last0").getPhoneNumber("home"),
+			              testName + " missing record before recovery");
+			assertNotNull(find(reloaded, "First2 Last2").getPhoneNumber("home"),
+			              testName + " missing record after recovery");
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Test method for snapshots taken by {@link JournalLoader#save(Set)}
+	 */
+	@Test
+	@DisplayName("save(Set<Contact>) snapshot")
+	@Order(3)
+	final void testSnapshot()
+	{
+		String testName = new String("save(Set<Contact>) snapshot");
+		System.out.println(testName);
+
+		try
+		{
+			JournalLoader loader = new JournalLoader(testFile);
+			loader.setCompactionThreshold(5);
+			Set<Contact> contacts = buildContacts();
+			loader.save(contacts);
+			for (int i = 0; i < 5; i++)
+			{
+				find(contacts, "First" + i + " Last" + i)
+				    .addPhoneNumber("home", PhoneNumber.parse("069076245" + i));
+				loader.save(contacts);
+				assertTrue(loader.getLogFile().exists(), testName + " early snapshot");
+			}
+			find(contacts, "First5 Last5").addPhoneNumber("home", PhoneNumber.parse("0690762455"));
+			loader.save(contacts);
+			assertFalse(loader.getLogFile().exists(), testName + " missing snapshot");
+
+			Set<Contact> reloaded = new JSONLoader(testFile).load();
+			for (int i = 0; i < 6; i++)
+			{
+				assertNotNull(find(reloaded, "First" + i + " Last" + i).getPhoneNumber("home"),
+				              testName + " missing modification in snapshot " + i);
+			}
+		}
+		catch (IOException | ParseException e)
+		{
+			fail(testName + " unexpected exception " + e.getLocalizedMessage());
+		}
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -25,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
 import model.PhoneNumber;
+import utils.FlyweightFactory;
 
 /**
  * Test Class for {@link PhoneNumber}s
@@ -1116,4 +1118,171 @@ class PhoneNumberTest
 		}
 	}
 
+	/**
+	 * Test method for {@link model.PhoneNumber#parse(String)} compared to
+	 * {@link model.PhoneNumber#matcher(String)} on edge cases.
+	 */
+	@Test
+	@DisplayName("parse(String) edge cases")
+	@Order(15)
+	final void testParseEdgeCases()
+	{
+		String testName = new String("parse(String) edge cases");
+		System.out.println(testName);
+
+		String[] edgeStrings = new String[] {
+			"01\t69\n36\r74\f62\u000B",	// Valid number with other white spaces
+			" 01 69 36 74 62",			// Invalid leading space
+			"+33 01 69 36 74 6",		// Invalid international number with national prefix
+			"00 00 00 00 00",			// Valid (region 0)
+			"09 99 99 99 99",			// Valid biggest number
+			"01 69 36 74 6\u0662",		// Invalid non ASCII digit
+			"01-69-36-74-62",			// Invalid separator
+			"+3",						// Invalid truncated prefix
+			""							// Invalid empty string
+		};
+		for (String edgeString : edgeStrings)
+		{
+			boolean matches = PhoneNumber.matcher(edgeString).matches();
+			try
+			{
+				testNumber = PhoneNumber.parse(edgeString);
+				assertTrue(matches, testName + " unexpected valid \"" + edgeString + "\"");
+				assertEquals(testNumber, PhoneNumber.parse(testNumber.toString()),
+				             testName + " unexpected round trip of \"" + edgeString + "\"");
+			}
+			catch (IllegalArgumentException e)
+			{
+				assertFalse(matches, testName + " unexpected invalid \"" + edgeString + "\"");
+			}
+		}
+		testNumber = PhoneNumber.parse("09 99 99 99 99");
+		assertEquals(99999999, testNumber.getSubscriber(), testName + " unexpected subscriber");
+		assertEquals("09 99 99 99 99", testNumber.toString(), testName + " unexpected string");
+		testNumber = PhoneNumber.parse("+33100000001");
+		assertEquals("+33 1 00 00 00 01", testNumber.toString(), testName + " unexpected string");
+	}
+
+	/**
+	 * Test method for {@link model.PhoneNumber#getPackedValue()} and
+	 * {@link model.PhoneNumber#unpack(long)}.
+	 */
+	@Test
+	@DisplayName("getPackedValue() & unpack(long)")
+	@Order(16)
+	final void testPackedValue()
+	{
+		String testName = new String("getPackedValue() & unpack(long)");
+		System.out.println(testName);
+
+		for (int i = 0; i < testStrings.length; i++)
+		{
+			if (!expectedMatches[i])
+			{
+				continue;
+			}
+			testNumber = PhoneNumber.parse(testStrings[i]);
+			PhoneNumber unpacked = PhoneNumber.unpack(testNumber.getPackedValue());
+			assertNotSame(testNumber, unpacked, testName + " unexpected same instance");
+			assertEquals(testNumber.toString(), unpacked.toString(),
+			             testName + " unexpected unpacked number " + unpacked);
+			assertEquals(testNumber.isInternational(), unpacked.isInternational(),
+			             testName + " unexpected unpacked prefix " + unpacked);
+		}
+		assertTrue(PhoneNumber.parse("+33 1 69 36 74 62").getPackedValue()
+		    != PhoneNumber.parse("01 69 36 74 62").getPackedValue(),
+		           testName + " prefix not packed");
+		assertThrows(IllegalArgumentException.class,
+		             () -> PhoneNumber.unpack(-1L),
+		             testName + " unexpected valid packed value");
+		assertThrows(IllegalArgumentException.class,
+		             () -> PhoneNumber.unpack(1000000000L),
+		             testName + " unexpected valid packed value");
+	}
+
+	/**
+	 * Test method for {@link model.PhoneNumber#valueOf(String)} canonical
+	 * numbers and {@link model.PhoneNumber#getFlyweightFactory()}.
+	 */
+	@Test
+	@DisplayName("valueOf(String) canonical numbers")
+	@Order(17)
+	final void testCanonical()
+	{
+		String testName = new String("valueOf(String) canonical numbers");
+		System.out.println(testName);
+
+		long hits = PhoneNumber.getFlyweightFactory().getHits();
+		testNumber = PhoneNumber.valueOf("06 12 34 56 78");
+		assertSame(testNumber,
+		           PhoneNumber.valueOf("0612345678"),
+		           testName + " unexpected different instances");
+		assertTrue(PhoneNumber.getFlyweightFactory().getHits() > hits,
+		           testName + " unexpected hits count");
+		assertNotSame(testNumber,
+		              PhoneNumber.valueOf("+33 6 12 34 56 78"),
+		              testName + " unexpected same instance for other prefix");
+		assertThrows(UnsupportedOperationException.class,
+		             () -> testNumber.parseFrom("0712345678"),
+		             testName + " unexpected modification of canonical number");
+		assertEquals("06 12 34 56 78", testNumber.toString(),
+		             testName + " unexpected canonical number");
+
+		PhoneNumber copy = new PhoneNumber(testNumber);
+		assertEquals(testNumber.getPackedValue(), copy.getPackedValue(),
+		             testName + " unexpected packed value of copy");
+		assertTrue(copy.parseFrom("0712345678"),
+		           testName + " unexpected failure modifying copy");
+		assertSame(testNumber,
+		           PhoneNumber.valueOf("06 12 34 56 78"),
+		           testName + " unexpected different instances");
+		assertEquals("06 12 34 56 78", PhoneNumber.valueOf("0612345678").toString(),
+		             testName + " canonical number modified by copy");
+
+		/*
+		 * Parsed numbers are not shared
+		 */
+		PhoneNumber parsed = PhoneNumber.parse("06 12 34 56 78");
+		assertNotSame(testNumber, parsed, testName + " unexpected shared parsed number");
+		assertEquals(testNumber, parsed, testName + " unexpected parsed number");
+		assertTrue(parsed.parseFrom("0712345678"),
+		           testName + " unexpected failure modifying parsed number");
+	}
+
+	/**
+	 * Test method for {@link model.PhoneNumber#valueOf(String)} canonical
+	 * numbers which are not referenced anymore.
+	 */
+	@Test
+	@DisplayName("valueOf(String) unreferenced canonical numbers")
+	@Order(18)
+	final void testCanonicalReclaimed()
+	{
+		String testName = new String("valueOf(String) unreferenced canonical numbers");
+		System.out.println(testName);
+
+		FlyweightFactory<PhoneNumber> factory = PhoneNumber.getFlyweightFactory();
+		long evictions = factory.getEvictions();
+		int count = 100;
+		for (int i = 0; i < count; i++)
+		{
+			PhoneNumber.valueOf(String.format("05 55 %02d %02d %02d", i, i, i));
+		}
+		for (int i = 0;
+		     (i < 50) && ((factory.getEvictions() - evictions) < count);
+		     i++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(10);
+			}
+			catch (InterruptedException e)
+			{
+				fail(testName + " interrupted");
+			}
+		}
+		assertTrue((factory.getEvictions() - evictions) >= count,
+		           testName + " unexpected retained numbers");
+	}
 }
@@ -1,30 +1,138 @@
 package utils;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import logger.LoggerFactory;
 
 /**
  * Flyweight factory to manage frequently used elements such as
  * {@link javafx.scene.paint.Color}s
  * or {@link javafx.scene.image.Image}s.
- * Elements are stored in a {@link HashMap}<Integer, T> where the
- * {@link Integer}
- * key is the hashCode of stored element.
+ * Elements are stored in a {@link ConcurrentHashMap} under a key identifying
+ * their content: either the element itself (see {@link #get(Object)}) or any
+ * other key such as a name (see {@link #get(Object, Function)}).
  * When an element is requested from this factory, a search is performed within
  * {@link #map} to find such element. If not present, the element is first added
  * to {@link #map} then returned from {@link #map}.
+ * A factory can be bounded to a maximum number of elements, in which case the
+ * least recently used elements are evicted, and can retain its elements
+ * through {@link Retention#SOFT soft} or {@link Retention#WEAK weak}
+ * references so they can be reclaimed by the garbage collector.
+ * Each factory records {@link Statistics} about its use, which can also be
+ * monitored through JMX once the factory has been {@link #register(String)
+ * registered}.
  * @author davidroussel
  * @param <T> The type of elements stored in this factory
  */
-public class FlyweightFactory<T>
+public class FlyweightFactory<T> implements FlyweightFactoryMXBean
 {
 	/**
-	 * {@link HashMap} storing elements
+	 * Domain and type of the JMX names of registered factories
+	 * @see #register(String)
+	 */
+	public static final String ObjectNamePrefix = "utils:type=FlyweightFactory,name=";
+
+	/**
+	 * How elements are retained by a factory.
+	 * Soft and weak retentions only apply to elements stored under another
+	 * key than themselves, since keys are always strongly retained.
+	 */
+	public static enum Retention
+	{
+		/**
+		 * Elements are kept until evicted or cleared
+		 */
+		STRONG,
+		/**
+		 * Elements can be reclaimed by the garbage collector when memory runs
+		 * low
+		 */
+		SOFT,
+		/**
+		 * Elements can be reclaimed by the garbage collector as soon as they
+		 * are not used anymore outside of this factory
+		 */
+		WEAK
+	}
+
+	/**
+	 * {@link ConcurrentHashMap} storing elements by key
+	 */
+	private final ConcurrentHashMap<Object, Value<T>> map;
+
+	/**
+	 * Maximum number of elements in this factory or 0 if unbounded
+	 */
+	private final int maximumSize;
+
+	/**
+	 * How elements are retained by this factory
+	 */
+	private final Retention retention;
+
+	/**
+	 * Queue receiving references to elements reclaimed by the garbage
+	 * collector so their keys can be removed from {@link #map}
 	 */
-	protected HashMap<Integer, T> map;
+	private final ReferenceQueue<T> reclaimed = new ReferenceQueue<T>();
+
+	/**
+	 * Clock providing access ticks to elements of a bounded factory
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * Number of lookups performed in {@link #map}
+	 */
+	private final LongAdder lookups = new LongAdder();
+
+	/**
+	 * Number of lookups in {@link #map} which had to create a new element
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Number of elements created and stored in {@link #map}
+	 */
+	private final LongAdder loads = new LongAdder();
+
+	/**
+	 * Total time spent creating elements (in nanoseconds)
+	 */
+	private final LongAdder loadTime = new LongAdder();
+
+	/**
+	 * Number of elements evicted from {@link #map} or reclaimed by the garbage
+	 * collector
+	 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Estimates the number of bytes retained by an element (might be null)
+	 * @see #getEstimatedBytes()
+	 */
+	private volatile ToLongFunction<? super T> weigher = null;
+
+	/**
+	 * JMX name of this factory or null if it is not registered
+	 * @see #register(String)
+	 */
+	private ObjectName objectName = null;
 
 	/**
 	 * Logger to display messages (might be null)
@@ -32,22 +140,49 @@ public class FlyweightFactory<T>
 	Logger logger;
 
 	/**
-	 * Constructor with parentLogger.
+	 * Valued constructor.
 	 * Allocates the {@link #map}
 	 * @param parentLogger the parent logger
+	 * @param maximumSize maximum number of elements or 0 for an unbounded
+	 * factory
+	 * @param retention how elements are retained by this factory
+	 * @throws IllegalArgumentException if maximumSize is negative or retention
+	 * is null
 	 */
-	public FlyweightFactory(Logger parentLogger)
+	public FlyweightFactory(Logger parentLogger,
+	                        int maximumSize,
+	                        Retention retention)
+	    throws IllegalArgumentException
 	{
-		map = new HashMap<Integer, T>();
+		if ((maximumSize < 0) || (retention == null))
+		{
+			throw new IllegalArgumentException("invalid maximum size "
+			    + maximumSize + " or retention " + retention);
+		}
+		map = new ConcurrentHashMap<Object, Value<T>>();
+		this.maximumSize = maximumSize;
+		this.retention = retention;
 		logger = LoggerFactory.getParentLogger(getClass(),
 		                                       parentLogger,
 		                                       (parentLogger == null ?
 		                                    	Level.INFO : null)); // null level to inherit parent logger's level
 	}
 
+	/**
+	 * Constructor with parentLogger.
+	 * Allocates an unbounded {@link #map} with {@link Retention#STRONG}
+	 * retention
+	 * @param parentLogger the parent logger
+	 */
+	public FlyweightFactory(Logger parentLogger)
+	{
+		this(parentLogger, 0, Retention.STRONG);
+	}
+
 	/**
 	 * Default Constructor
-	 * Allocates the {@link #map}
+	 * Allocates an unbounded {@link #map} with {@link Retention#STRONG}
+	 * retention
 	 */
 	public FlyweightFactory()
 	{
@@ -55,77 +190,315 @@ public class FlyweightFactory<T>
 	}
 
 	/**
-	 * Element accessor from hashcode rather than element itself
-	 * @param hash the hashcode of the requested element
-	 * @return the element corresponding to the provided hash code or null if
-	 * there is no such element in this factory.
-	 * @note This method is required for storing element that do not provide
-	 * a valid hashcode. In such cases we should provide the missing hashcode.
+	 * Element accessor from a key identifying its content.
+	 * If there is no element for this key yet, it is created by creator and
+	 * stored in {@link #map} so further calls with an equal key return
+	 * the same instance.
+	 * @param <K> the type of keys
+	 * @param key the key identifying the requested element
+	 * @param creator creates the element for a key which has no element yet
+	 * (or whose element has been evicted or reclaimed)
+	 * @return the unique element corresponding to this key or null if creator
+	 * provided no element, in which case nothing is stored for this key
+	 * @throws NullPointerException if key is null
+	 * @implNote Safe to call concurrently: an existing element is found with
+	 * a single lookup in {@link #map}, and the creator is called at most once
+	 * per key at a time. Elements shared this way should be immutable.
 	 */
-	protected T get(int hash)
+	public <K> T get(K key, Function<? super K, ? extends T> creator)
 	{
-		Integer key = Integer.valueOf(hash);
-		if (map.containsKey(key))
+		lookups.increment();
+		Value<T> value = map.get(key);
+		T element = (value == null) ? null : value.get();
+		if (element != null)
 		{
-			return map.get(key);
+			touch(value);
+			return element;
 		}
 
-		return null;
-	}
-
-	/**
-	 * Adds a new element pair <Hash, Value> to {@link #map}
-	 * @param hash the hashcode of the element to add
-	 * @param element the element to add
-	 * @return true if such element was not already present in the {@link #map}
-	 * and has been added to the {@link #map}, false otherwise.
-	 */
-	protected boolean put(int hash, T element)
-	{
-		Integer key = Integer.valueOf(hash);
-		if (!map.containsKey(key))
+		expunge();
+		@SuppressWarnings("unchecked")
+		T[] created = (T[]) new Object[1];
+		value = map.compute(key, (Object k, Value<T> current) ->
 		{
-			if (element != null)
+			T existing = (current == null) ? null : current.get();
+			if (existing != null)
 			{
-				map.put(key, element);
-				return true;
+				created[0] = existing;
+				return current;
 			}
-			else
+			misses.increment();
+			long start = System.nanoTime();
+			created[0] = creator.apply(key);
+			loadTime.add(System.nanoTime() - start);
+			if (created[0] == null)
 			{
-				logger.severe("null element");
+				return null;
 			}
+			loads.increment();
+			return newValue(k, created[0]);
+		});
+		if (value == null)
+		{
+			logger.severe("null element for " + key);
+			return null;
 		}
-		return false;
+		touch(value);
+		evict();
+		return created[0];
 	}
 
 	/**
 	 * Element accessor from element prototype
 	 * @param element the searched element
-	 * @return The required element from the {@link HashMap}, which might be
-	 * a different instance from element but with the same content.
+	 * @return The required element from the {@link #map}, which might be
+	 * a different instance from element but with the same content (as
+	 * defined by {@link Object#equals(Object)}), or null if element is null.
 	 */
 	public T get(T element)
 	{
 		if (element != null)
 		{
-			int hash = element.hashCode();
-			T result = get(hash);
-			if (result == null)
+			return get(element, (T e) -> e);
+		}
+		return null;
+	}
+
+	/**
+	 * Number of lookups which found an existing element in {@link #map}
+	 * @return the number of hits since this factory was created or its
+	 * statistics were reset
+	 * @see #get(Object, Function)
+	 */
+	@Override
+	public long getHits()
+	{
+		return lookups.sum() - misses.sum();
+	}
+
+	/**
+	 * Number of lookups which had to create a new element in
+	 * {@link #map}
+	 * @return the number of misses since this factory was created or its
+	 * statistics were reset
+	 * @see #get(Object, Function)
+	 */
+	@Override
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * Ratio of lookups which found an existing element in {@link #map}
+	 * @return the hit rate within [0..1] or 1 if there was no lookup yet
+	 */
+	@Override
+	public double getHitRate()
+	{
+		long lookupCount = lookups.sum();
+		return (lookupCount == 0) ? 1.0 :
+		    (double) (lookupCount - misses.sum()) / lookupCount;
+	}
+
+	/**
+	 * Number of elements created and stored in {@link #map}
+	 * @return the number of loads since this factory was created or its
+	 * statistics were reset
+	 */
+	@Override
+	public long getLoads()
+	{
+		return loads.sum();
+	}
+
+	/**
+	 * Total time spent creating elements, including creations which provided
+	 * no element
+	 * @return the total load time in nanoseconds
+	 */
+	@Override
+	public long getTotalLoadTime()
+	{
+		return loadTime.sum();
+	}
+
+	/**
+	 * Number of elements evicted to respect {@link #maximumSize} or reclaimed
+	 * by the garbage collector
+	 * @return the number of evictions since this factory was created or its
+	 * statistics were reset
+	 */
+	@Override
+	public long getEvictions()
+	{
+		expunge();
+		return evictions.sum();
+	}
+
+	/**
+	 * Estimated number of bytes retained by the elements currently stored in
+	 * {@link #map}, as evaluated by {@link #weigher} when they were stored
+	 * @return the estimated retained bytes or 0 if this factory has no
+	 * weigher
+	 * @implNote Sums the weights of all elements, so it is meant for
+	 * monitoring rather than frequent calls.
+	 */
+	@Override
+	public long getEstimatedBytes()
+	{
+		expunge();
+		long bytes = 0;
+		for (Value<T> value : map.values())
+		{
+			bytes += value.weight;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Snapshot of the statistics of this factory
+	 * @return a new snapshot of the current statistics
+	 */
+	public Statistics getStatistics()
+	{
+		long lookupCount = lookups.sum();
+		long missCount = misses.sum();
+		return new Statistics(lookupCount - missCount,
+		                      missCount,
+		                      loads.sum(),
+		                      loadTime.sum(),
+		                      getEvictions(),
+		                      getEstimatedBytes(),
+		                      map.size());
+	}
+
+	/**
+	 * Forget all statistics recorded so far
+	 */
+	@Override
+	public void resetStatistics()
+	{
+		lookups.reset();
+		misses.reset();
+		loads.reset();
+		loadTime.reset();
+		evictions.reset();
+	}
+
+	/**
+	 * Weigher mutator.
+	 * Weights of elements already stored are not evaluated again.
+	 * @param weigher estimates the number of bytes retained by an element
+	 * (or null if unknown)
+	 * @see #getEstimatedBytes()
+	 */
+	public void setWeigher(ToLongFunction<? super T> weigher)
+	{
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Registers this factory with the platform MBean server so its statistics
+	 * can be monitored through JMX as {@link #ObjectNamePrefix} + name.
+	 * Registering again replaces the previous registration of this factory.
+	 * @param name the name of this factory
+	 * @return true if this factory has been registered, false otherwise
+	 * @see FlyweightFactoryMXBean
+	 */
+	public synchronized boolean register(String name)
+	{
+		unregister();
+		try
+		{
+			ObjectName newName = new ObjectName(ObjectNamePrefix
+			    + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+			                                                         newName);
+			objectName = newName;
+			return true;
+		}
+		catch (JMException | IllegalArgumentException e)
+		{
+			logger.warning("couldn't register " + name + ": "
+			    + e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Unregisters this factory from the platform MBean server if it was
+	 * registered
+	 * @see #register(String)
+	 */
+	public synchronized void unregister()
+	{
+		if (objectName != null)
+		{
+			try
 			{
-				put(hash, element);
-				result = get(hash);
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
 			}
-			return result;
+			catch (JMException e)
+			{
+				logger.warning("couldn't unregister " + objectName + ": "
+				    + e.getLocalizedMessage());
+			}
+			objectName = null;
 		}
-		return null;
+	}
+
+	/**
+	 * Number of elements currently stored in this factory
+	 * @return the number of elements in {@link #map} which have not been
+	 * reclaimed
+	 */
+	public int size()
+	{
+		expunge();
+		return map.size();
+	}
+
+	/**
+	 * Number of elements currently stored in this factory
+	 * @return the number of elements in {@link #map} which have not been
+	 * reclaimed
+	 * @see #size()
+	 */
+	@Override
+	public int getSize()
+	{
+		return size();
+	}
+
+	/**
+	 * Maximum number of elements in this factory
+	 * @return the maximum number of elements or 0 if this factory is
+	 * unbounded
+	 */
+	@Override
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Retention accessor
+	 * @return how elements are retained by this factory
+	 */
+	public Retention getRetention()
+	{
+		return retention;
 	}
 
 	/**
 	 * Content cleanup
 	 */
+	@Override
 	public void clear()
 	{
 		map.clear();
+		expunge();
 	}
 
 	/**
@@ -138,11 +511,383 @@ public class FlyweightFactory<T>
 	}
 
 	/**
-	 * Cleanup before destruction
+	 * Creates the value holding an element according to {@link #retention}
+	 * @param key the key of the element
+	 * @param element the element to hold
+	 * @return a new value holding element
 	 */
-	@Override
-	protected void finalize()
+	private Value<T> newValue(Object key, T element)
+	{
+		ToLongFunction<? super T> currentWeigher = weigher;
+		long weight = (currentWeigher == null) ? 0 : currentWeigher.applyAsLong(element);
+		switch (retention)
+		{
+			case SOFT:
+				return new Value<T>(new SoftValue<T>(key, element, reclaimed), weight);
+			case WEAK:
+				return new Value<T>(new WeakValue<T>(key, element, reclaimed), weight);
+			default:
+				return new Value<T>(element, weight);
+		}
+	}
+
+	/**
+	 * Records an access to a value of a bounded factory
+	 * @param value the accessed value
+	 */
+	private void touch(Value<T> value)
+	{
+		if (maximumSize > 0)
+		{
+			value.tick = clock.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes the least recently used elements when this factory holds more
+	 * than {@link #maximumSize} elements
+	 * @implNote Evicts an extra eighth of {@link #maximumSize} at once so the
+	 * sort of access ticks is amortized over the following insertions.
+	 */
+	private void evict()
+	{
+		if ((maximumSize == 0) || (map.size() <= maximumSize))
+		{
+			return;
+		}
+		synchronized (clock)
+		{
+			int excess = map.size() - maximumSize;
+			if (excess <= 0)
+			{
+				return;
+			}
+			int count = excess + (maximumSize / 8);
+			long[] ticks = map.values()
+			    .stream()
+			    .mapToLong((Value<T> v) -> v.tick)
+			    .sorted()
+			    .toArray();
+			if (ticks.length == 0)
+			{
+				return;
+			}
+			long threshold = ticks[Math.min(count, ticks.length) - 1];
+			for (Iterator<Value<T>> it = map.values().iterator(); it.hasNext();)
+			{
+				if (it.next().tick <= threshold)
+				{
+					it.remove();
+					evictions.increment();
+				}
+			}
+			logger.fine("evicted elements up to tick " + threshold);
+		}
+	}
+
+	/**
+	 * Removes from {@link #map} the keys of elements reclaimed by the garbage
+	 * collector
+	 */
+	private void expunge()
+	{
+		Reference<? extends T> reference;
+		while ((reference = reclaimed.poll()) != null)
+		{
+			Object key = (reference instanceof SoftValue) ?
+			    ((SoftValue<? extends T>) reference).key :
+			    ((WeakValue<? extends T>) reference).key;
+			final Reference<? extends T> cleared = reference;
+			map.computeIfPresent(key, (Object k, Value<T> v) ->
+			{
+				if (v.reference != cleared)
+				{
+					return v;
+				}
+				evictions.increment();
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Immutable snapshot of the statistics of a factory
+	 * @see FlyweightFactory#getStatistics()
+	 */
+	public static final class Statistics
+	{
+		/**
+		 * Number of lookups which found an existing element
+		 */
+		private final long hits;
+
+		/**
+		 * Number of lookups which had to create a new element
+		 */
+		private final long misses;
+
+		/**
+		 * Number of elements created and stored
+		 */
+		private final long loads;
+
+		/**
+		 * Total time spent creating elements (in nanoseconds)
+		 */
+		private final long totalLoadTime;
+
+		/**
+		 * Number of elements evicted or reclaimed
+		 */
+		private final long evictions;
+
+		/**
+		 * Estimated number of bytes retained by the stored elements
+		 */
+		private final long estimatedBytes;
+
+		/**
+		 * Number of stored elements
+		 */
+		private final int size;
+
+		/**
+		 * Valued constructor
+		 * @param hits number of lookups which found an existing element
+		 * @param misses number of lookups which had to create a new element
+		 * @param loads number of elements created and stored
+		 * @param totalLoadTime total time spent creating elements (in
+		 * nanoseconds)
+		 * @param evictions number of elements evicted or reclaimed
+		 * @param estimatedBytes estimated number of bytes retained by the
+		 * stored elements
+		 * @param size number of stored elements
+		 */
+		public Statistics(long hits,
+		                  long misses,
+		                  long loads,
+		                  long totalLoadTime,
+		                  long evictions,
+		                  long estimatedBytes,
+		                  int size)
+		{
+			this.hits = hits;
+			this.misses = misses;
+			this.loads = loads;
+			this.totalLoadTime = totalLoadTime;
+			this.evictions = evictions;
+			this.estimatedBytes = estimatedBytes;
+			this.size = size;
+		}
+
+		/**
+		 * Hits accessor
+		 * @return the number of lookups which found an existing element
+		 */
+		public long getHits()
+		{
+			return hits;
+		}
+
+		/**
+		 * Misses accessor
+		 * @return the number of lookups which had to create a new element
+		 */
+		public long getMisses()
+		{
+			return misses;
+		}
+
+		/**
+		 * Ratio of lookups which found an existing element
+		 * @return the hit rate within [0..1] or 1 if there was no lookup
+		 */
+		public double getHitRate()
+		{
+			long lookups = hits + misses;
+			return (lookups == 0) ? 1.0 : (double) hits / lookups;
+		}
+
+		/**
+		 * Loads accessor
+		 * @return the number of elements created and stored
+		 */
+		public long getLoads()
+		{
+			return loads;
+		}
+
+		/**
+		 * Total load time accessor
+		 * @return the total time spent creating elements (in nanoseconds)
+		 */
+		public long getTotalLoadTime()
+		{
+			return totalLoadTime;
+		}
+
+		/**
+		 * Average time spent creating an element
+		 * @return the average load time in nanoseconds or 0 if there was no
+		 * creation
+		 */
+		public double getAverageLoadTime()
+		{
+			return (misses == 0) ? 0.0 : (double) totalLoadTime / misses;
+		}
+
+		/**
+		 * Evictions accessor
+		 * @return the number of elements evicted or reclaimed
+		 */
+		public long getEvictions()
+		{
+			return evictions;
+		}
+
+		/**
+		 * Estimated bytes accessor
+		 * @return the estimated number of bytes retained by the stored
+		 * elements
+		 */
+		public long getEstimatedBytes()
+		{
+			return estimatedBytes;
+		}
+
+		/**
+		 * Size accessor
+		 * @return the number of stored elements
+		 */
+		public int getSize()
+		{
+			return size;
+		}
+
+		/**
+		 * String representation of these statistics
+		 * @return a string summarizing these statistics
+		 */
+		@Override
+		public String toString()
+		{
+			return String.format("%d elements (~%d bytes), %d hits, %d misses (%.1f%% hit rate), %d loads (%.0f ns avg), %d evictions",
+			                     size,
+			                     estimatedBytes,
+			                     hits,
+			                     misses,
+			                     getHitRate() * 100.0,
+			                     loads,
+			                     getAverageLoadTime(),
+			                     evictions);
+		}
+	}
+
+	/**
+	 * Element stored in {@link #map}, either directly or through a reference
+	 * @param <T> The type of the element
+	 */
+	private static final class Value<T>
+	{
+		/**
+		 * The element when retained strongly
+		 */
+		private final T element;
+
+		/**
+		 * The reference to the element when retained softly or weakly
+		 */
+		private final Reference<T> reference;
+
+		/**
+		 * Estimated number of bytes retained by the element
+		 */
+		private final long weight;
+
+		/**
+		 * Tick of the last access to this element
+		 */
+		private volatile long tick;
+
+		/**
+		 * Constructor of strongly retained element
+		 * @param element the element
+		 * @param weight the estimated bytes retained by the element
+		 */
+		private Value(T element, long weight)
+		{
+			this.element = element;
+			reference = null;
+			this.weight = weight;
+		}
+
+		/**
+		 * Constructor of softly or weakly retained element
+		 * @param reference the reference to the element
+		 * @param weight the estimated bytes retained by the element
+		 */
+		private Value(Reference<T> reference, long weight)
+		{
+			element = null;
+			this.reference = reference;
+			this.weight = weight;
+		}
+
+		/**
+		 * Element accessor
+		 * @return the element or null if it has been reclaimed
+		 */
+		private T get()
+		{
+			return (reference == null) ? element : reference.get();
+		}
+	}
+
+	/**
+	 * Soft reference remembering the key of its element
+	 * @param <T> The type of the element
+	 */
+	private static final class SoftValue<T> extends SoftReference<T>
 	{
-		clear();
+		/**
+		 * The key of the element
+		 */
+		private final Object key;
+
+		/**
+		 * Constructor
+		 * @param key the key of the element
+		 * @param element the element
+		 * @param queue the queue to register this reference with
+		 */
+		private SoftValue(Object key, T element, ReferenceQueue<T> queue)
+		{
+			super(element, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Weak reference remembering the key of its element
+	 * @param <T> The type of the element
+	 */
+	private static final class WeakValue<T> extends WeakReference<T>
+	{
+		/**
+		 * The key of the element
+		 */
+		private final Object key;
+
+		/**
+		 * Constructor
+		 * @param key the key of the element
+		 * @param element the element
+		 * @param queue the queue to register this reference with
+		 */
+		private WeakValue(Object key, T element, ReferenceQueue<T> queue)
+		{
+			super(element, queue);
+			this.key = key;
+		}
 	}
 }
@@ -0,0 +1,75 @@
+package utils;
+
+/**
+ * Management interface of {@link FlyweightFactory}s registered with the
+ * platform MBean server by {@link FlyweightFactory#register(String)}, so their
+ * statistics can be monitored with JMX tools such as jconsole.
+ * @see FlyweightFactory.Statistics
+ */
+public interface FlyweightFactoryMXBean
+{
+	/**
+	 * Number of lookups which found an existing element
+	 * @return the number of hits
+	 */
+	public long getHits();
+
+	/**
+	 * Number of lookups which had to create a new element
+	 * @return the number of misses
+	 */
+	public long getMisses();
+
+	/**
+	 * Ratio of lookups which found an existing element
+	 * @return the hit rate within [0..1] or 1 if there was no lookup yet
+	 */
+	public double getHitRate();
+
+	/**
+	 * Number of elements successfully created and stored
+	 * @return the number of loads
+	 */
+	public long getLoads();
+
+	/**
+	 * Total time spent creating elements
+	 * @return the total load time in nanoseconds
+	 */
+	public long getTotalLoadTime();
+
+	/**
+	 * Number of elements evicted to respect the maximum size or reclaimed by
+	 * the garbage collector
+	 * @return the number of evictions
+	 */
+	public long getEvictions();
+
+	/**
+	 * Estimated number of bytes retained by the elements currently stored
+	 * @return the estimated retained bytes or 0 if the factory has no weigher
+	 */
+	public long getEstimatedBytes();
+
+	/**
+	 * Number of elements currently stored
+	 * @return the number of elements
+	 */
+	public int getSize();
+
+	/**
+	 * Maximum number of elements
+	 * @return the maximum number of elements or 0 if unbounded
+	 */
+	public int getMaximumSize();
+
+	/**
+	 * Forget all statistics recorded so far
+	 */
+	public void resetStatistics();
+
+	/**
+	 * Content cleanup
+	 */
+	public void clear();
+}
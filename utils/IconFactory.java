@@ -1,13 +1,21 @@
 package utils;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import logger.LoggerFactory;
 
 /**
- * Factory providing {@link Image} icons in order to reuse frequently used images
+ * Factory providing {@link Image} icons in order to reuse frequently used images.
+ * Icons exist in several sizes ({@link #IconSizes}) and the variant best
+ * suited to the requested size and screen {@link #getScale() scale} is
+ * provided. Icons can be {@link #preload(double, String...) preloaded} in
+ * background so they are already decoded when first displayed.
  * @author davidroussel
  */
 public class IconFactory
@@ -20,13 +28,71 @@ public class IconFactory
 	/**
 	 * Path end for all searched images
 	 */
-	private final static String ImagePostfix = "-48.png";
+	private final static String ImagePostfix = ".png";
 
 	/**
-	 * La factory stockant et fournissant les icônes
+	 * Sizes (in pixels) of the variants available for each icon, in
+	 * ascending order
+	 */
+	public final static int[] IconSizes = new int[] {16, 32, 48};
+
+	/**
+	 * Size of the icons provided by {@link #getIcon(String)}
+	 */
+	public final static int DefaultSize = 48;
+
+	/**
+	 * Screen output scale applied to requested sizes (e.g. 2.0 on HiDPI
+	 * screens)
+	 */
+	private static volatile double scale = 1.0;
+
+	/**
+	 * Single low priority daemon thread loading icons in background
+	 * @see #preload(double, String...)
+	 */
+	static private final ExecutorService preloader =
+		Executors.newSingleThreadExecutor((Runnable task) ->
+		{
+			Thread thread = new Thread(task, "IconFactory preloader");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+
+	/**
+	 * La factory stockant et fournissant les icônes, indexées par leur nom et
+	 * leur taille (e.g. "contacts-48").
+	 * Les icônes sont retenues par des {@link java.lang.ref.SoftReference} afin de
+	 * pouvoir être libérées en cas de manque de mémoire.
 	 */
 	static private FlyweightFactory<Image> iconFactory =
-		new FlyweightFactory<Image>();
+		new FlyweightFactory<Image>(null, 0, FlyweightFactory.Retention.SOFT);
+
+	static
+	{
+		// 4 bytes per pixel in the platform image
+		iconFactory.setWeigher((Image icon) ->
+			(long) (icon.getWidth() * icon.getHeight() * 4));
+		iconFactory.register("Icons");
+	}
+
+	/**
+	 * Holder of the placeholder stored in {@link #iconFactory} for icon
+	 * variants without image file, so they are not searched again on each
+	 * request.
+	 * @implNote Kept in a holder class so the placeholder (which requires the
+	 * JavaFX toolkit) is only created when a variant is first found missing.
+	 * Being strongly reachable, the placeholder is never cleared from
+	 * {@link #iconFactory}.
+	 */
+	static private final class MissingIcon
+	{
+		/**
+		 * The placeholder image standing for a missing icon variant
+		 */
+		static final Image Instance = new WritableImage(1, 1);
+	}
 
 	/**
 	 * Logger from {@link #iconFactory}
@@ -40,11 +106,28 @@ public class IconFactory
 	/**
 	 * Factory method retrieving an Image icon based on a provided icon name
 	 * @param name the name of the icon to search for (e.g. "Circle" will trigger
-	 * a search for "Circle-32.png" file)
+	 * a search for "Circle-48.png" file)
 	 * @return The image corresponding to this name or null if there is no such
 	 * image.
+	 * @see #getIcon(String, double)
 	 */
 	static public Image getIcon(String name)
+	{
+		return getIcon(name, DefaultSize);
+	}
+
+	/**
+	 * Factory method retrieving the variant of an Image icon best suited to
+	 * display it with the provided size on screen
+	 * @param name the name of the icon to search for (e.g. "Circle" with a
+	 * 24 pixels size will trigger a search for "Circle-32.png" file, or
+	 * "Circle-48.png" with a 2.0 {@link #scale})
+	 * @param size the size (in pixels) the icon will be displayed with
+	 * @return The image corresponding to this name or null if there is no such
+	 * image.
+	 * @see #variantSizes(double)
+	 */
+	static public Image getIcon(String name, double size)
 	{
 		if ((name == null) || name.isEmpty())
 		{
@@ -52,28 +135,126 @@ public class IconFactory
 			return null;
 		}
 
-		int hash = name.hashCode();
-		Image icon = iconFactory.get(hash);
+		for (int variant : variantSizes(size * scale))
+		{
+			Image icon = iconFactory.get(name + "-" + variant, IconFactory::loadIcon);
+			if ((icon != null) && (icon != MissingIcon.Instance))
+			{
+				return icon;
+			}
+		}
+		logger.severe(name + ": couldn't load any icon file");
+		return null;
+	}
 
-		if (icon == null)
+	/**
+	 * Sizes of the icon variants to try in order to display an icon with
+	 * the provided number of pixels: smallest variants not smaller than pixels
+	 * first (so icons are only scaled down), then the largest variants
+	 * @param pixels the number of pixels an icon will be displayed with
+	 * @return the sizes from {@link #IconSizes} in order of preference
+	 */
+	static public int[] variantSizes(double pixels)
+	{
+		int[] sizes = new int[IconSizes.length];
+		int count = 0;
+		for (int size : IconSizes)
 		{
-			String fileName = new String(ImagePrefix + name + ImagePostfix);
-			try
+			if (size >= pixels)
 			{
-				icon = new Image(fileName);
+				sizes[count++] = size;
 			}
-			catch (IllegalArgumentException iae)
+		}
+		for (int i = IconSizes.length - 1; i >= 0; i--)
+		{
+			if (IconSizes[i] < pixels)
 			{
-				logger.severe(name + ": couldn't load file " + fileName);
+				sizes[count++] = IconSizes[i];
 			}
+		}
+		return sizes;
+	}
+
+	/**
+	 * Loads the Image icon corresponding to a variant name
+	 * @param variant the name of the icon variant to load (e.g. "Circle-32")
+	 * @return the image loaded from the file corresponding to this name or
+	 * {@link MissingIcon#Instance} if it couldn't be loaded
+	 */
+	static private Image loadIcon(String variant)
+	{
+		String fileName = new String(ImagePrefix + variant + ImagePostfix);
+		Image icon = null;
+		try
+		{
+			icon = new Image(fileName);
+		}
+		catch (IllegalArgumentException iae)
+		{
+			logger.fine(variant + ": couldn't load file " + fileName);
+		}
 
-			if ((icon != null) && !icon.isError())
+		if ((icon != null) && !icon.isError())
+		{
+			return icon;
+		}
+		return MissingIcon.Instance;
+	}
+
+	/**
+	 * Loads in background the icons with the provided names so they are
+	 * already decoded when requested with the same size
+	 * @param size the size (in pixels) the icons will be displayed with
+	 * @param names the names of the icons to load
+	 * @return a future completed with the number of preloaded icons
+	 */
+	static public CompletableFuture<Integer> preload(double size, String... names)
+	{
+		return CompletableFuture.supplyAsync(() ->
+		{
+			int count = 0;
+			for (String name : names)
 			{
-				iconFactory.put(hash, icon);
+				if (getIcon(name, size) != null)
+				{
+					count++;
+				}
 			}
-			icon = iconFactory.get(hash);
+			return Integer.valueOf(count);
+		}, preloader);
+	}
+
+	/**
+	 * Screen scale accessor
+	 * @return the output scale applied to requested icon sizes
+	 */
+	public static double getScale()
+	{
+		return scale;
+	}
+
+	/**
+	 * Screen scale mutator (e.g. from
+	 * {@link javafx.stage.Screen#getOutputScaleX()})
+	 * @param scale the output scale to apply to requested icon sizes
+	 * @throws IllegalArgumentException if scale is not strictly positive
+	 */
+	public static void setScale(double scale) throws IllegalArgumentException
+	{
+		if (!(scale > 0.0))
+		{
+			throw new IllegalArgumentException("invalid scale " + scale);
 		}
-		return icon;
+		IconFactory.scale = scale;
+	}
+
+	/**
+	 * Statistics accessor
+	 * @return a snapshot of the statistics of the icons cache
+	 */
+	public static FlyweightFactory.Statistics getStatistics()
+	{
+		return iconFactory.getStatistics();
 	}
 
 	/**